@@ -6,6 +6,7 @@ import org.pmcsn.configuration.ConfigurationManager;
 import org.pmcsn.controller.FiniteImprovedSimulationRunner;
 import org.pmcsn.controller.FiniteSimulationRunner;
 import org.pmcsn.controller.ModelVerificationBatchMeans;
+import org.pmcsn.controller.PairedComparisonRunner;
 
 import static org.pmcsn.utils.PrintUtils.*;
 
@@ -69,6 +70,12 @@ public class BoltSimulator {
             case 5:
                 ModelVerificationBatchMeans.runModelWithBatchMeansMethodImproved();
                 break;
+            case 6:
+                improvedRunner.runImprovedModelSimulationOnFarm(false);
+                break;
+            case 7:
+                new PairedComparisonRunner().runPairedComparison(false);
+                break;
             default:
                 printError("Invalid simulation type '" + simulationType + "'.");
         }
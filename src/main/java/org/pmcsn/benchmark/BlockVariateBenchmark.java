@@ -0,0 +1,125 @@
+package org.pmcsn.benchmark;
+
+import org.pmcsn.centers.ServiceGenerator;
+import org.pmcsn.configuration.ConfigurationManager;
+import org.pmcsn.libraries.RngStream;
+import org.pmcsn.libraries.Rngs;
+import org.pmcsn.utils.Distributions;
+import org.pmcsn.utils.TruncatedNormalSampler;
+
+import static org.pmcsn.utils.TruncatedNormalSampler.Inverse.AS241;
+
+// Per-variate cost of the block transforms of Distributions against the scalar inversion one value at a
+// time: exponential, lognormal and the truncated service times of the small center (AS241), then the
+// services handed out by a ServiceGenerator. Run with --add-modules jdk.incubator.vector for the vector
+// path, without it for the scalar fallback. That the block transforms match the scalar code is checked by
+// DistributionsTest.
+public class BlockVariateBenchmark {
+    private static final int STREAM = 0;
+    private static final int VARIATES = 20_000_000;
+    private static final int BLOCK = ServiceGenerator.BLOCK;
+    private static final int ROUNDS = 5;
+
+    // consumed by the measured loops so that the JIT cannot drop them
+    private static double sink;
+
+    public static void main(String[] args) {
+        ConfigurationManager config = new ConfigurationManager();
+        TruncatedNormalSampler service = new TruncatedNormalSampler(
+                config.getDouble("smallCenter", "meanServiceTime"),
+                config.getDouble("smallCenter", "sigma"),
+                config.getDouble("smallCenter", "truncationPoint"),
+                AS241);
+
+        System.out.printf("vector API %s%n", Distributions.VECTOR ? "on" : "off (scalar fallback)");
+        System.out.printf("%-28s %12s%n", "variates", "ns/variate");
+        report("exponential, scalar", (stream, u) -> {
+            double acc = 0;
+            for (int done = 0; done < VARIATES; done += BLOCK) {
+                stream.fill(u, 0, BLOCK);
+                for (int i = 0; i < BLOCK; i++) {
+                    acc += -1.0 * Math.log(1.0 - u[i]);
+                }
+            }
+            sink += acc;
+        });
+        report("exponential, block", (stream, u) -> {
+            double acc = 0;
+            for (int done = 0; done < VARIATES; done += BLOCK) {
+                stream.fill(u, 0, BLOCK);
+                Distributions.exponential(1.0, u, 0, BLOCK);
+                acc += sum(u);
+            }
+            sink += acc;
+        });
+        report("lognormal, scalar", (stream, u) -> {
+            double acc = 0;
+            for (int done = 0; done < VARIATES; done += BLOCK) {
+                stream.fill(u, 0, BLOCK);
+                for (int i = 0; i < BLOCK; i++) {
+                    acc += Math.exp(service.a + service.b * TruncatedNormalSampler.idfStandard(u[i]));
+                }
+            }
+            sink += acc;
+        });
+        report("lognormal, block", (stream, u) -> {
+            double acc = 0;
+            for (int done = 0; done < VARIATES; done += BLOCK) {
+                stream.fill(u, 0, BLOCK);
+                Distributions.logNormal(service.a, service.b, u, 0, BLOCK);
+                acc += sum(u);
+            }
+            sink += acc;
+        });
+        report("service, scalar", (stream, u) -> {
+            double acc = 0;
+            for (int i = 0; i < VARIATES; i++) {
+                acc += service.sample(stream);
+            }
+            sink += acc;
+        });
+        report("service, block", (stream, u) -> {
+            double acc = 0;
+            for (int done = 0; done < VARIATES; done += BLOCK) {
+                stream.fill(u, 0, BLOCK);
+                service.transform(u, 0, BLOCK);
+                acc += sum(u);
+            }
+            sink += acc;
+        });
+        report("service, ServiceGenerator", (stream, u) -> {
+            ServiceGenerator services = new ServiceGenerator(stream, service::transform);
+            double acc = 0;
+            for (int i = 0; i < VARIATES; i++) {
+                acc += services.next();
+            }
+            sink += acc;
+        });
+    }
+
+    private interface Loop {
+        void run(RngStream stream, double[] u);
+    }
+
+    private static void report(String name, Loop loop) {
+        double best = Double.POSITIVE_INFINITY;
+        for (int round = 0; round < ROUNDS; round++) {
+            Rngs rngs = new Rngs();
+            rngs.plantSeeds(123456789L);
+            RngStream stream = new RngStream(rngs, STREAM);
+            double[] u = new double[BLOCK];
+            long start = System.nanoTime();
+            loop.run(stream, u);
+            best = Math.min(best, (double) (System.nanoTime() - start) / VARIATES);
+        }
+        System.out.printf("%-28s %12.3f%n", name, best);
+    }
+
+    private static double sum(double[] values) {
+        double acc = 0;
+        for (double value : values) {
+            acc += value;
+        }
+        return acc;
+    }
+}
@@ -0,0 +1,167 @@
+package org.pmcsn.benchmark;
+
+import org.pmcsn.centers.MultiServer;
+import org.pmcsn.centers.RideCenter;
+import org.pmcsn.centers.SimpleCenter;
+import org.pmcsn.configuration.CenterFactory;
+import org.pmcsn.configuration.ConfigurationManager;
+import org.pmcsn.configuration.EventQueueFactory;
+import org.pmcsn.libraries.Rngs;
+import org.pmcsn.model.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.pmcsn.model.EventType.*;
+
+// Routes the events of a trace recorded from runs of the improved model through the runners' former
+// switch on EventType and through the dispatch of EventDispatcher (table of the centers by node, final
+// call with the kind), with handlers doing the same trivial work in both cases, so that the difference
+// is the cost of the dispatch itself on the type sequence the simulator actually sees.
+public class DispatchBenchmark {
+    // replications recorded, then the trace is replayed until DISPATCHES events have been routed
+    private static final int REPLICATIONS = 150;
+    private static final long DISPATCHES = 20L << 20;
+    private static final int ROUNDS = 5;
+
+    // per-center work shared by both dispatch strategies
+    private static final class Sink {
+        double arrivals;
+        double completions;
+
+        // as MultiServer.onEvent
+        void onEvent(int kind, MsqEvent event) {
+            if (kind == EventType.ARRIVAL) {
+                arrival(event);
+            } else {
+                completion(event);
+            }
+        }
+
+        void arrival(MsqEvent event) {
+            arrivals += event.time;
+        }
+
+        void completion(MsqEvent event) {
+            completions += event.service;
+        }
+    }
+
+    private static final Sink[] sinks = {new Sink(), new Sink(), new Sink(), new Sink()};
+
+    public static void main(String[] args) throws Exception {
+        MsqEvent[] events = record();
+        int passes = (int) Math.max(1, DISPATCHES / events.length);
+        System.out.printf("trace of %d events from %d replications%n", events.length, REPLICATIONS);
+
+        double bestSwitch = Double.POSITIVE_INFINITY;
+        double bestTable = Double.POSITIVE_INFINITY;
+        for (int round = 0; round < ROUNDS; round++) {
+            bestSwitch = Math.min(bestSwitch, switchDispatch(events, passes));
+            bestTable = Math.min(bestTable, tableDispatch(events, passes));
+        }
+        System.out.printf("%-12s %10.2f ns/event%n", "switch", bestSwitch);
+        System.out.printf("%-12s %10.2f ns/event%n", "table", bestTable);
+
+        double checksum = 0;
+        for (Sink sink : sinks) {
+            checksum += sink.arrivals + sink.completions;
+        }
+        System.out.printf("checksum %f%n", checksum);
+    }
+
+    // the events of REPLICATIONS replications of the improved model, as FiniteImprovedReplication runs them
+    private static MsqEvent[] record() throws Exception {
+        double stop = new ConfigurationManager().getDouble("general", "finiteSimObservationTime");
+        CenterFactory factory = new CenterFactory(true);
+        EventQueueFactory eventQueueFactory = new EventQueueFactory();
+        List<MsqEvent> events = new ArrayList<>();
+        for (long seed = 123456789L; seed < 123456789L + REPLICATIONS; seed++) {
+            SimpleCenter small = factory.createSmallCenter(false, false);
+            SimpleCenter medium = factory.createMediumCenter(false, false);
+            SimpleCenter large = factory.createLargeCenter(false, false);
+            RideCenter ride = factory.createRideCenter(false, false);
+            MultiServer[] centers = {small, medium, large, ride};
+            EventDispatcher dispatcher = new EventDispatcher();
+            Rngs rngs = new Rngs();
+            rngs.plantSeeds(seed);
+            for (MultiServer center : centers) {
+                center.registerHandlers(dispatcher);
+            }
+            small.start(rngs, 0);
+            medium.start(rngs, 0);
+            large.start(rngs, 0);
+            ride.start(rngs, 0);
+            small.setStop(stop);
+            medium.setStop(stop);
+            large.setStop(stop);
+            ride.setStop(stop);
+            EventQueue queue = eventQueueFactory.createEventQueue();
+            queue.addArrival(ARRIVAL_SMALL_CENTER, small.getArrival());
+            queue.addArrival(ARRIVAL_MEDIUM_CENTER, medium.getArrival());
+            queue.addArrival(ARRIVAL_LARGE_CENTER, large.getArrival());
+            queue.addArrival(ARRIVAL_RIDE_CENTER, ride.getArrival(), ride.getNumPosti());
+
+            MsqTime time = new MsqTime();
+            // the loop condition of FiniteImprovedReplication
+            while ((small.isEndOfArrivals() || medium.isEndOfArrivals() || large.isEndOfArrivals() || !ride.isEndOfArrivals() || queue.isEmpty())) {
+                MsqEvent event = queue.pop();
+                time.next = event.time;
+                for (MultiServer center : centers) {
+                    center.setArea(time);
+                }
+                time.current = time.next;
+                events.add(new MsqEvent(event.type, event.time, event.service));
+                dispatcher.dispatch(event, time, queue);
+                queue.release(event);
+            }
+        }
+        return events.toArray(new MsqEvent[0]);
+    }
+
+    private static double switchDispatch(MsqEvent[] events, int passes) {
+        long start = System.nanoTime();
+        for (int pass = 0; pass < passes; pass++) {
+            for (MsqEvent event : events) {
+                switch (event.type) {
+                    case ARRIVAL_SMALL_CENTER:
+                        sinks[0].arrival(event);
+                        break;
+                    case COMPLETION_SMALL_CENTER:
+                        sinks[0].completion(event);
+                        break;
+                    case ARRIVAL_MEDIUM_CENTER:
+                        sinks[1].arrival(event);
+                        break;
+                    case COMPLETION_MEDIUM_CENTER:
+                        sinks[1].completion(event);
+                        break;
+                    case ARRIVAL_LARGE_CENTER:
+                        sinks[2].arrival(event);
+                        break;
+                    case COMPLETION_LARGE_CENTER:
+                        sinks[2].completion(event);
+                        break;
+                    case ARRIVAL_RIDE_CENTER:
+                        sinks[3].arrival(event);
+                        break;
+                    case COMPLETION_RIDE_CENTER:
+                        sinks[3].completion(event);
+                        break;
+                }
+            }
+        }
+        return (System.nanoTime() - start) / ((double) events.length * passes);
+    }
+
+    private static double tableDispatch(MsqEvent[] events, int passes) {
+        long start = System.nanoTime();
+        for (int pass = 0; pass < passes; pass++) {
+            for (MsqEvent event : events) {
+                EventType type = event.type;
+                sinks[type.node].onEvent(type.kind, event);
+            }
+        }
+        return (System.nanoTime() - start) / ((double) events.length * passes);
+    }
+}
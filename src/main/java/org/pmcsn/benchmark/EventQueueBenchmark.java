@@ -0,0 +1,53 @@
+package org.pmcsn.benchmark;
+
+import org.pmcsn.libraries.Rngs;
+import org.pmcsn.model.*;
+
+import java.util.function.Supplier;
+
+import static org.pmcsn.utils.Distributions.exponential;
+
+// Classic "hold" benchmark: the queue is preloaded with N pending events, then every
+// operation pops the most imminent one and schedules a new one an exponential delay later.
+public class EventQueueBenchmark {
+    private static final int[] POPULATIONS = {16, 256, 4096, 65536};
+    private static final int OPERATIONS = 5_000_000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("%-16s %10s %16s%n", "queue", "pending", "events/sec");
+        for (int population : POPULATIONS) {
+            run("PriorityQueue", population, EventQueue::new);
+            run("4-ary heap", population, () -> new EventQueue(new DaryHeapEventList()));
+            run("calendar", population, () -> new EventQueue(new CalendarEventList()));
+            run("per-center heap", population, () -> new EventQueue(
+                    new PartitionedEventList(EventType.NODES, pool -> new DaryHeapEventList(64, pool))));
+        }
+    }
+
+    private static void run(String name, int population, Supplier<EventQueue> factory) throws Exception {
+        double best = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            best = Math.max(best, hold(factory.get(), population));
+        }
+        System.out.printf("%-16s %10d %16.0f%n", name, population, best);
+    }
+
+    private static double hold(EventQueue queue, int population) throws Exception {
+        Rngs rngs = new Rngs();
+        rngs.plantSeeds(123456789L);
+        EventType[] types = EventType.values();
+        for (int i = 0; i < population; i++) {
+            queue.add(queue.acquire(types[i % types.length], exponential(1.0, rngs), 0, i));
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < OPERATIONS; i++) {
+            MsqEvent event = queue.pop();
+            queue.add(queue.acquire(event.type, event.time + exponential(1.0, rngs), 0, event.serverId));
+            queue.release(event);
+        }
+        long elapsed = System.nanoTime() - start;
+        return OPERATIONS / (elapsed / 1e9);
+    }
+}
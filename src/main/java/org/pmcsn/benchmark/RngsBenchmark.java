@@ -0,0 +1,93 @@
+package org.pmcsn.benchmark;
+
+import org.pmcsn.libraries.Mrg32k3a;
+import org.pmcsn.libraries.RngStream;
+import org.pmcsn.libraries.Rngs;
+import org.pmcsn.libraries.SplittableBackend;
+
+import java.util.function.Supplier;
+
+// Per-variate cost of the uniform generator: one random() per draw with and without selecting
+// the stream first (the way the centers draw), the bulk Rngs.fill() and the buffered RngStream.
+// The same loops are then timed on the other generators Rngs can run on. That the bulk paths match
+// repeated random() calls is checked by RngsTest.
+public class RngsBenchmark {
+    private static final int STREAM = 52;
+    private static final int VARIATES = 50_000_000;
+    private static final int[] BLOCKS = {64, 1024, 4096};
+    private static final int ROUNDS = 5;
+
+    // consumed by the measured loops so that the JIT cannot drop them
+    private static double sink;
+
+    public static void main(String[] args) {
+        benchmark("lehmer", Rngs::new);
+        benchmark("mrg32k3a", () -> new Rngs(new Mrg32k3a()));
+        benchmark("l64x128", () -> new Rngs(new SplittableBackend()));
+    }
+
+    private static void benchmark(String generator, Supplier<Rngs> factory) {
+        System.out.printf("%n%-28s %12s%n", generator, "ns/variate");
+        report("selectStream + random()", factory, RngsBenchmark::selectAndRandom);
+        report("random()", factory, RngsBenchmark::random);
+        for (int block : BLOCKS) {
+            report("fill, block " + block, factory, rngs -> fill(rngs, block));
+        }
+        report("RngStream.random()", factory, RngsBenchmark::buffered);
+    }
+
+    private interface Loop {
+        void run(Rngs rngs);
+    }
+
+    private static void report(String name, Supplier<Rngs> factory, Loop loop) {
+        double best = Double.POSITIVE_INFINITY;
+        for (int round = 0; round < ROUNDS; round++) {
+            Rngs rngs = factory.get();
+            rngs.plantSeeds(123456789L);
+            long start = System.nanoTime();
+            loop.run(rngs);
+            best = Math.min(best, (double) (System.nanoTime() - start) / VARIATES);
+        }
+        System.out.printf("%-28s %12.3f%n", name, best);
+    }
+
+    private static void selectAndRandom(Rngs rngs) {
+        double acc = 0;
+        for (int i = 0; i < VARIATES; i++) {
+            rngs.selectStream(STREAM);
+            acc += rngs.random();
+        }
+        sink += acc;
+    }
+
+    private static void random(Rngs rngs) {
+        rngs.selectStream(STREAM);
+        double acc = 0;
+        for (int i = 0; i < VARIATES; i++) {
+            acc += rngs.random();
+        }
+        sink += acc;
+    }
+
+    private static void fill(Rngs rngs, int block) {
+        double[] u = new double[block];
+        double acc = 0;
+        for (int done = 0; done < VARIATES; done += block) {
+            rngs.fill(STREAM, u, 0, block);
+            for (int i = 0; i < block; i++) {
+                acc += u[i];
+            }
+        }
+        sink += acc;
+    }
+
+    private static void buffered(Rngs rngs) {
+        RngStream stream = new RngStream(rngs, STREAM);
+        double acc = 0;
+        for (int i = 0; i < VARIATES; i++) {
+            acc += stream.random();
+        }
+        sink += acc;
+    }
+}
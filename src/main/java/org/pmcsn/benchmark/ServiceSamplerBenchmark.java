@@ -0,0 +1,68 @@
+package org.pmcsn.benchmark;
+
+import org.pmcsn.configuration.ConfigurationManager;
+import org.pmcsn.libraries.RngStream;
+import org.pmcsn.libraries.Rngs;
+import org.pmcsn.utils.Distributions;
+import org.pmcsn.utils.TruncatedNormalSampler;
+
+import static org.pmcsn.utils.TruncatedNormalSampler.Inverse.AS241;
+import static org.pmcsn.utils.TruncatedNormalSampler.Inverse.NEWTON;
+
+// Per-draw cost of the truncated service times of the small center: Distributions.truncatedNormal
+// (parameters and tails recomputed on every draw) against a TruncatedNormalSampler built once, with
+// both inverses. That the samplers agree with Distributions.truncatedNormal is checked by
+// TruncatedNormalSamplerTest.
+public class ServiceSamplerBenchmark {
+    private static final int STREAM = 0;
+    private static final int DRAWS = 2_000_000;
+    private static final int ROUNDS = 5;
+
+    // consumed by the measured loops so that the JIT cannot drop them
+    private static double sink;
+
+    public static void main(String[] args) {
+        ConfigurationManager config = new ConfigurationManager();
+        double mean = config.getDouble("smallCenter", "meanServiceTime");
+        double sigma = config.getDouble("smallCenter", "sigma");
+        double truncationPoint = config.getDouble("smallCenter", "truncationPoint");
+        TruncatedNormalSampler newton = new TruncatedNormalSampler(mean, sigma, truncationPoint, NEWTON);
+        TruncatedNormalSampler as241 = new TruncatedNormalSampler(mean, sigma, truncationPoint, AS241);
+
+        System.out.printf("%-28s %12s%n", "service times", "ns/draw");
+        report("truncatedNormal", stream -> {
+            double acc = 0;
+            for (int i = 0; i < DRAWS; i++) {
+                acc += Distributions.truncatedNormal(mean, sigma, truncationPoint, stream);
+            }
+            sink += acc;
+        });
+        report("sampler, newton", stream -> draw(newton, stream));
+        report("sampler, as241", stream -> draw(as241, stream));
+    }
+
+    private interface Loop {
+        void run(RngStream stream);
+    }
+
+    private static void report(String name, Loop loop) {
+        double best = Double.POSITIVE_INFINITY;
+        for (int round = 0; round < ROUNDS; round++) {
+            Rngs rngs = new Rngs();
+            rngs.plantSeeds(123456789L);
+            RngStream stream = new RngStream(rngs, STREAM);
+            long start = System.nanoTime();
+            loop.run(stream);
+            best = Math.min(best, (double) (System.nanoTime() - start) / DRAWS);
+        }
+        System.out.printf("%-28s %12.3f%n", name, best);
+    }
+
+    private static void draw(TruncatedNormalSampler sampler, RngStream stream) {
+        double acc = 0;
+        for (int i = 0; i < DRAWS; i++) {
+            acc += sampler.sample(stream);
+        }
+        sink += acc;
+    }
+}
@@ -0,0 +1,103 @@
+package org.pmcsn.benchmark;
+
+import org.pmcsn.configuration.ConfigurationManager;
+import org.pmcsn.libraries.RngStream;
+import org.pmcsn.libraries.Rngs;
+import org.pmcsn.utils.Distributions;
+import org.pmcsn.utils.TruncatedNormalSampler;
+import org.pmcsn.utils.Ziggurat;
+
+import static org.pmcsn.utils.TruncatedNormalSampler.Inverse.AS241;
+
+// Per-variate cost of the inversion generators against the ziggurat: exponential, standard normal
+// (Distributions.normal is the Odeh-Evans inversion and draws from Rngs, not from a stream handle) and the
+// truncated service times of the small center. That the ziggurat variates match the distributions is
+// checked by ZigguratTest.
+public class VariateBenchmark {
+    private static final int STREAM = 0;
+    private static final int VARIATES = 20_000_000;
+    private static final int ROUNDS = 5;
+
+    // consumed by the measured loops so that the JIT cannot drop them
+    private static double sink;
+
+    public static void main(String[] args) {
+        ConfigurationManager config = new ConfigurationManager();
+        TruncatedNormalSampler service = new TruncatedNormalSampler(
+                config.getDouble("smallCenter", "meanServiceTime"),
+                config.getDouble("smallCenter", "sigma"),
+                config.getDouble("smallCenter", "truncationPoint"),
+                AS241);
+
+        System.out.printf("%-28s %12s%n", "variates", "ns/variate");
+        report("uniform", stream -> {
+            double acc = 0;
+            for (int i = 0; i < VARIATES; i++) {
+                acc += stream.random();
+            }
+            sink += acc;
+        });
+        report("exponential, inversion", stream -> {
+            double acc = 0;
+            for (int i = 0; i < VARIATES; i++) {
+                acc += Distributions.exponential(1.0, stream);
+            }
+            sink += acc;
+        });
+        report("exponential, ziggurat", stream -> {
+            double acc = 0;
+            for (int i = 0; i < VARIATES; i++) {
+                acc += Ziggurat.exponential(stream);
+            }
+            sink += acc;
+        });
+        report("normal, inversion", stream -> {
+            Rngs rngs = new Rngs();
+            rngs.plantSeeds(123456789L);
+            rngs.selectStream(STREAM);
+            double acc = 0;
+            for (int i = 0; i < VARIATES; i++) {
+                acc += Distributions.normal(0.0, 1.0, rngs);
+            }
+            sink += acc;
+        });
+        report("normal, ziggurat", stream -> {
+            double acc = 0;
+            for (int i = 0; i < VARIATES; i++) {
+                acc += Ziggurat.normal(stream);
+            }
+            sink += acc;
+        });
+        report("service, as241", stream -> {
+            double acc = 0;
+            for (int i = 0; i < VARIATES; i++) {
+                acc += service.sample(stream);
+            }
+            sink += acc;
+        });
+        report("service, ziggurat", stream -> {
+            double acc = 0;
+            for (int i = 0; i < VARIATES; i++) {
+                acc += service.sampleZiggurat(stream);
+            }
+            sink += acc;
+        });
+    }
+
+    private interface Loop {
+        void run(RngStream stream);
+    }
+
+    private static void report(String name, Loop loop) {
+        double best = Double.POSITIVE_INFINITY;
+        for (int round = 0; round < ROUNDS; round++) {
+            Rngs rngs = new Rngs();
+            rngs.plantSeeds(123456789L);
+            RngStream stream = new RngStream(rngs, STREAM);
+            long start = System.nanoTime();
+            loop.run(stream);
+            best = Math.min(best, (double) (System.nanoTime() - start) / VARIATES);
+        }
+        System.out.printf("%-28s %12.3f%n", name, best);
+    }
+}
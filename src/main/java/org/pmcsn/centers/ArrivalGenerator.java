@@ -0,0 +1,87 @@
+package org.pmcsn.centers;
+
+import org.pmcsn.libraries.RngStream;
+import org.pmcsn.libraries.Rngs;
+import org.pmcsn.utils.Ziggurat;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import static org.pmcsn.utils.Distributions.exponential;
+
+// Exogenous arrival times of a center, produced in blocks from its own arrival stream:
+// the interarrivals of a block are drawn with one bulk call on the stream (Rngs.fill).
+// Every stream of Rngs is independent, so drawing ahead does not change the sequence of
+// arrival times nor the draws of the other streams.
+// With the ziggurat the number of uniforms per interarrival is not fixed: they are drawn one at a
+// time through a handle on the stream, whose buffer is then part of the state.
+public class ArrivalGenerator {
+    public static final int BLOCK = 4096;
+
+    private final int streamIndex;
+    private final double interArrivalTime;
+    private final double[] times = new double[BLOCK];
+    private int cursor = BLOCK;
+    private double sarrival;
+    private Rngs rngs;
+    private RngStream stream;
+    private boolean ziggurat;
+
+    public ArrivalGenerator(int streamIndex, double interArrivalTime) {
+        this.streamIndex = streamIndex;
+        this.interArrivalTime = interArrivalTime;
+    }
+
+    public void reset(Rngs rngs, double sarrival, boolean ziggurat) {
+        this.rngs = rngs;
+        this.stream = new RngStream(rngs, streamIndex);
+        this.ziggurat = ziggurat;
+        this.sarrival = sarrival;
+        this.cursor = BLOCK;
+    }
+
+    // absolute time of the next arrival
+    public double next() {
+        if (cursor == BLOCK) {
+            fill();
+        }
+        return times[cursor++];
+    }
+
+    // the arrivals drawn ahead are part of the state: the stream has already moved past them
+    public void writeState(DataOutput out) throws IOException {
+        out.writeDouble(sarrival);
+        out.writeInt(cursor);
+        for (int i = cursor; i < BLOCK; i++) {
+            out.writeDouble(times[i]);
+        }
+        stream.writeState(out);
+    }
+
+    public void readState(DataInput in) throws IOException {
+        sarrival = in.readDouble();
+        cursor = in.readInt();
+        for (int i = cursor; i < BLOCK; i++) {
+            times[i] = in.readDouble();
+        }
+        stream.readState(in);
+    }
+
+    private void fill() {
+        if (ziggurat) {
+            for (int i = 0; i < BLOCK; i++) {
+                times[i] = interArrivalTime * Ziggurat.exponential(stream);
+            }
+        } else {
+            exponential(interArrivalTime, rngs, streamIndex, times, 0, BLOCK);
+        }
+        double t = sarrival;
+        for (int i = 0; i < BLOCK; i++) {
+            t += times[i];
+            times[i] = t;
+        }
+        sarrival = t;
+        cursor = 0;
+    }
+}
@@ -1,9 +1,17 @@
 package org.pmcsn.centers;
 
 
+import org.pmcsn.configuration.ConfigurationManager;
+import org.pmcsn.libraries.RngStream;
 import org.pmcsn.libraries.Rngs;
+import org.pmcsn.libraries.StreamRegistry;
 import org.pmcsn.model.*;
+import org.pmcsn.utils.Sampler;
+import org.pmcsn.utils.VariateMethod;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.*;
 
 import static org.pmcsn.model.MeanStatistics.computeMean;
@@ -19,9 +27,16 @@ public abstract class MultiServer {
     protected double lastArrivalTime = 0;
     protected double lastCompletionTime = 0;
     protected double meanServiceTime;
+    protected final double interArrivalTime;
+    protected final ArrivalGenerator arrivals;
     protected String centerName;
     protected boolean approximateServiceAsExponential;
     protected Rngs rngs;
+    // every purpose draws from a stream of its own, allocated from the registry when the center is
+    // built and drawn through a handle, without selecting it on the shared Rngs
+    protected final StreamRegistry streams;
+    protected final int serviceStreamIndex;
+    protected ServiceGenerator services;
     protected int batchSize;
     private double currentBatchStartTime;
     protected MsqSum[] sum;
@@ -33,14 +48,33 @@ public abstract class MultiServer {
     protected boolean isBatch;
     protected float acceptedJobs = 0 ;
     protected float totJobs = 0;
-
-
-    public MultiServer(String centerName, double meanServiceTime, int serversNumber, int streamIndex, boolean approximateServiceAsExponential, boolean isBatch, int batchSize, int numBatches) {
+    // common random numbers: the services are bound to the jobs as they arrive, so that different
+    // models see the same input for the same job
+    protected boolean commonRandomNumbers = false;
+    // generator of the service and interarrival times, ziggurat only where the streams may drift (see reset)
+    protected VariateMethod variates = VariateMethod.INVERSION;
+    protected boolean ziggurat = false;
+    // empirical service times (histogram from config) in place of the truncated lognormal, null if none
+    protected Sampler serviceHistogram = null;
+    // streams of a center, as offsets from streamIndex
+    protected static final int SERVICE_STREAM = 0;
+    protected static final int ARRIVAL_STREAM = 1;
+    protected static final int FEEDBACK_STREAM = 2;
+    protected static final int SEATS_STREAM = 2;
+    protected static final int BUSY_MATCH_STREAM = 3;
+    protected static final int IDLE_MATCH_STREAM = 4;
+
+
+    public MultiServer(String centerName, double meanServiceTime, int serversNumber, int streamIndex, StreamRegistry streams, boolean approximateServiceAsExponential, boolean isBatch, int batchSize, int numBatches) {
         this.batchSize = batchSize;
         this.centerName = centerName;
         this.meanServiceTime = meanServiceTime;
+        this.interArrivalTime = new ConfigurationManager().getDouble("general", "interArrivalTime");
         this.SERVERS = serversNumber;
         this.streamIndex = streamIndex;
+        this.streams = streams;
+        this.serviceStreamIndex = allocateStream("service", SERVICE_STREAM);
+        this.arrivals = new ArrivalGenerator(allocateStream("arrivals", ARRIVAL_STREAM), interArrivalTime);
         this.sum =  new MsqSum[SERVERS];
         this.servers = new MsqServer[SERVERS];
         for(int i=0; i<SERVERS ; i++){
@@ -56,9 +90,37 @@ public abstract class MultiServer {
 
     //********************************** ABSTRACT METHODS *********************************************
     abstract void spawnCompletionEvent(MsqTime time, EventQueue queue, int serverId, MsqEvent currEvent);
-    abstract double getService(int streamIndex);
+    abstract double getService(RngStream stream);
+    // block version of getService() for the inversion generators: the uniforms in values[from..to) are
+    // replaced by the services getService() would draw from them
+    abstract void transformServices(double[] values, int from, int to);
+    // schedules the next exogenous arrival of this center
+    public abstract void generateNextArrival(EventQueue queue);
+    // routes the events of this center to it
+    public abstract void registerHandlers(EventDispatcher dispatcher);
 
     //********************************** CONCRETE METHODS *********************************************
+    // an event of this center, of kind EventType.ARRIVAL or EventType.COMPLETION; final, so that the call
+    // of EventDispatcher binds statically
+    public final void onEvent(int kind, MsqEvent event, MsqTime time, EventQueue queue) {
+        if (kind == EventType.ARRIVAL) {
+            processArrival(event, time, queue);
+            generateNextArrival(queue);
+        } else {
+            processCompletion(event, time, queue);
+        }
+    }
+
+    protected final int allocateStream(String purpose, int offset) {
+        return streams.allocate(centerName + " " + purpose, streamIndex + offset);
+    }
+
+    // next service from the stream of the generator: drawn ahead in blocks by inversion, one at a time
+    // with the ziggurat
+    protected double nextService(ServiceGenerator generator) {
+        return ziggurat ? getService(generator.stream) : generator.next();
+    }
+
     public void stopWarmup(MsqTime time) {
         this.warmup = false;
         resetBatch(time);
@@ -79,6 +141,10 @@ public abstract class MultiServer {
         this.acceptedJobs = 0;
         this.totJobs = 0;
         this.rngs = rngs;
+        this.services = new ServiceGenerator(new RngStream(rngs, serviceStreamIndex), this::transformServices);
+        // the ziggurat draws a variable number of uniforms per variate, not monotone in them: inversion
+        // is kept under common random numbers and on antithetic runs
+        this.ziggurat = variates == VariateMethod.ZIGGURAT && !commonRandomNumbers && !rngs.isAntithetic();
     }
 
     public void resetBatch(MsqTime time) {
@@ -88,6 +154,62 @@ public abstract class MultiServer {
         currentBatchStartTime = time.current;
     }
 
+    // state of a batch run, for checkpoints: rngs is restored by the owner, the completion
+    // handles of the servers when the event queue is restored
+    public void writeState(DataOutput out) throws IOException {
+        out.writeLong(numberOfJobsInNode);
+        out.writeLong(totalNumberOfJobsServed);
+        area.writeState(out);
+        out.writeDouble(firstArrivalTime);
+        out.writeDouble(lastArrivalTime);
+        out.writeDouble(lastCompletionTime);
+        out.writeDouble(currentBatchStartTime);
+        for (int i = 0; i < SERVERS; i++) {
+            sum[i].writeState(out);
+            servers[i].writeState(out);
+        }
+        batchStatistics.writeState(out);
+        out.writeLong(jobServedPerBatch);
+        out.writeBoolean(warmup);
+        out.writeFloat(acceptedJobs);
+        out.writeFloat(totJobs);
+        arrivals.writeState(out);
+        services.writeState(out);
+    }
+
+    public void readState(DataInput in) throws IOException {
+        numberOfJobsInNode = in.readLong();
+        totalNumberOfJobsServed = in.readLong();
+        area.readState(in);
+        firstArrivalTime = in.readDouble();
+        lastArrivalTime = in.readDouble();
+        lastCompletionTime = in.readDouble();
+        currentBatchStartTime = in.readDouble();
+        for (int i = 0; i < SERVERS; i++) {
+            sum[i].readState(in);
+            servers[i].readState(in);
+        }
+        batchStatistics.readState(in);
+        jobServedPerBatch = in.readLong();
+        warmup = in.readBoolean();
+        acceptedJobs = in.readFloat();
+        totJobs = in.readFloat();
+        arrivals.readState(in);
+        services.readState(in);
+    }
+
+    public void setCommonRandomNumbers(boolean commonRandomNumbers) {
+        this.commonRandomNumbers = commonRandomNumbers;
+    }
+
+    public void setVariates(VariateMethod variates) {
+        this.variates = variates;
+    }
+
+    public void setServiceHistogram(Sampler serviceHistogram) {
+        this.serviceHistogram = serviceHistogram;
+    }
+
     public long getTotalNumberOfJobsServed(){
         return totalNumberOfJobsServed;
     }
@@ -107,7 +229,10 @@ public abstract class MultiServer {
     public void setArea(MsqTime time) {
         double width = time.next - time.current;
         area.incNodeArea(width * numberOfJobsInNode);
-        long busyServers = Arrays.stream(servers).filter(x -> x.running).count();
+        long busyServers = 0;
+        for (MsqServer server : servers) {
+            if (server.running) busyServers++;
+        }
         area.incQueueArea(width * (numberOfJobsInNode - busyServers));
         area.incServiceArea(width);
     }
@@ -170,13 +295,15 @@ public abstract class MultiServer {
     }
 
     public void writeStats(String simulationType, long seed) {
-        statistics.writeStats(simulationType, seed);
+        // the rows of the results csv exist only when the series are kept
+        if (statistics.isRetainingSeries()) {
+            statistics.writeStats(simulationType, seed);
+        }
         List<Double> prob = statistics.getProbAccept();
-        List<Double> totJobsList = statistics.getJobServed();
 
         // Compute the necessary values
         double avgAcceptanceRate = prob.isEmpty() ? 0 : computeMean(prob);
-        double avgJobServed = computeMean(totJobsList);
+        double avgJobServed = statistics.getMeanJobServed();
 
         // Print all the stats
         printStats(centerName, avgAcceptanceRate, avgJobServed, statistics.getMeanStatistics().meanServiceTime, statistics.getMeanBusyTime());
@@ -1,41 +1,60 @@
 package org.pmcsn.centers;
 
-import org.pmcsn.configuration.ConfigurationManager;
+import org.pmcsn.libraries.RngStream;
 import org.pmcsn.libraries.Rngs;
+import org.pmcsn.libraries.StreamRegistry;
 import org.pmcsn.model.*;
+import org.pmcsn.utils.AliasSampler;
+import org.pmcsn.utils.TruncatedNormalSampler;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.Queue;
 
 import static org.pmcsn.model.EventType.*;
 import static org.pmcsn.utils.Distributions.*;
 
-public class RideCenter extends MultiServer{
-    private final double sigma;
-    private final double truncationPoint;
-    private double sarrival;
+public final class RideCenter extends MultiServer{
+    // seats of the largest cars, the most an arrival can ask for
+    public static final int MAX_SEATS = 8;
+    private final TruncatedNormalSampler serviceSampler;
     private double STOP = Double.POSITIVE_INFINITY;
     private boolean isEndOfArrivals = false;
     private final double matchInterval;
     private double lastMatchTime = Double.NEGATIVE_INFINITY;
-    private final Queue<MsqEvent> pendingArrivals = new LinkedList<>();
+    // pooled copies of the arrivals waiting for a match, owned by this center until matched or fed back
+    private final Queue<MsqEvent> pendingArrivals = new ArrayDeque<>();
     private final int p_match_busy;
     private final int p_match_idle;
     int smallServers;
     int mediumServers;
     int largeServers;
-
-    public RideCenter(String centerName, double meanServiceTime, double sigma, double truncationPoint, int serversNumber, int smallServers, int mediumServers, int largeServers, int streamIndex, boolean approximateServiceAsExponential, boolean isBatch, int batchSize, int numBatches, double matchInterval, int p_match_busy, int p_match_idle) {
-        super(centerName, meanServiceTime, serversNumber, streamIndex, approximateServiceAsExponential, isBatch, batchSize, numBatches);
-        this.sigma = sigma;
-        this.truncationPoint = truncationPoint;
+    // seats of the arrivals, acceptance of a match by a busy and by an idle car
+    private final int seatsStreamIndex;
+    private final int busyMatchStreamIndex;
+    private final int idleMatchStreamIndex;
+    private RngStream seatsStream;
+    private RngStream busyMatchStream;
+    private RngStream idleMatchStream;
+    // seats asked by the arrivals
+    private final AliasSampler seats;
+
+    public RideCenter(String centerName, double meanServiceTime, TruncatedNormalSampler serviceSampler, int serversNumber, int smallServers, int mediumServers, int largeServers, int streamIndex, StreamRegistry streams, boolean approximateServiceAsExponential, boolean isBatch, int batchSize, int numBatches, double matchInterval, int p_match_busy, int p_match_idle, AliasSampler seats) {
+        super(centerName, meanServiceTime, serversNumber, streamIndex, streams, approximateServiceAsExponential, isBatch, batchSize, numBatches);
+        this.serviceSampler = serviceSampler;
         this.matchInterval = matchInterval;
         this.p_match_busy = p_match_busy;
         this.p_match_idle = p_match_idle;
         this.smallServers = smallServers;
         this.mediumServers = mediumServers;
         this.largeServers = largeServers;
+        this.seats = seats;
+        this.seatsStreamIndex = allocateStream("seats", SEATS_STREAM);
+        this.busyMatchStreamIndex = allocateStream("busy matching", BUSY_MATCH_STREAM);
+        this.idleMatchStreamIndex = allocateStream("idle matching", IDLE_MATCH_STREAM);
 
         for (int i=0; i<serversNumber; i++){
             if (i<smallServers){
@@ -45,8 +64,8 @@ public class RideCenter extends MultiServer{
                 servers[i].capacita = 4;
                 servers[i].capacitaRimanente = 4;
             }else{
-                servers[i].capacita = 8;
-                servers[i].capacitaRimanente = 8;
+                servers[i].capacita = MAX_SEATS;
+                servers[i].capacitaRimanente = MAX_SEATS;
             }
             servers[i].numRichiesteServite = 0;
             servers[i].running = false;
@@ -55,34 +74,53 @@ public class RideCenter extends MultiServer{
         }
     }
 
+    @Override
+    public void registerHandlers(EventDispatcher dispatcher) {
+        dispatcher.register(ARRIVAL_RIDE_CENTER.node, this);
+    }
+
     @Override
     public void spawnCompletionEvent(MsqTime time, EventQueue queue, int serverId, MsqEvent currEvent) {
-        double service = getService(streamIndex);
-        System.out.printf("[DEBUG][RideCenter.spawnCompletion] server=%d, richiesti=%d, servizio=%.3f%n", serverId, currEvent.postiRichiesti, service);
-        MsqEvent event;
+        double service = nextService(services);
+        double completionTime;
 
         //generate a new completion event
         if (servers[serverId].running){
-            queue.removeCompletionsFor(serverId);
             double avgService = (servers[serverId].svc * servers[serverId].numRichiesteServite + service) / (servers[serverId].numRichiesteServite+1);
             servers[serverId].svc = avgService;
-            event = new MsqEvent(EventType.COMPLETION_RIDE_CENTER, time.current + avgService, avgService, serverId);
+            service = avgService;
         }else {
-            event = new MsqEvent(EventType.COMPLETION_RIDE_CENTER, time.current + service, service, serverId);
             servers[serverId].running = true;
         }
+        completionTime = time.current + service;
 
         servers[serverId].capacitaRimanente -= currEvent.postiRichiesti;
         servers[serverId].numRichiesteServite ++;
 
-        queue.add(event);
-        System.out.printf("[DEBUG][RideCenter.spawnCompletion] evento aggiunto: %s%n", event);
+        // the car already has a pending completion: move it instead of scheduling a new one
+        if (servers[serverId].completionHandle != EventList.NO_HANDLE) {
+            queue.reschedule(servers[serverId].completionHandle, completionTime, service);
+        } else {
+            MsqEvent event = queue.acquire(EventType.COMPLETION_RIDE_CENTER, completionTime, service, serverId);
+            servers[serverId].completionHandle = queue.add(event);
+        }
+    }
+
+    @Override
+    double getService(RngStream stream) {
+        if (serviceHistogram != null) {
+            return serviceHistogram.sample(stream);
+        }
+        return ziggurat ? serviceSampler.sampleZiggurat(stream) : serviceSampler.sample(stream);
     }
 
     @Override
-    double getService(int streamIndex) {
-        rngs.selectStream(streamIndex);
-        return truncatedNormal(meanServiceTime, sigma, truncationPoint, rngs);
+    void transformServices(double[] values, int from, int to) {
+        if (serviceHistogram != null) {
+            serviceHistogram.transform(values, from, to);
+        } else {
+            serviceSampler.transform(values, from, to);
+        }
     }
 
     public boolean isEndOfArrivals() {
@@ -91,8 +129,56 @@ public class RideCenter extends MultiServer{
 
     public void start(Rngs rngs, double sarrival){
         this.rngs = rngs;
-        this.sarrival = sarrival;
         reset(rngs);
+        arrivals.reset(rngs, sarrival, ziggurat);
+        seatsStream = new RngStream(rngs, seatsStreamIndex);
+        busyMatchStream = new RngStream(rngs, busyMatchStreamIndex);
+        idleMatchStream = new RngStream(rngs, idleMatchStreamIndex);
+        // nothing of the matching state may leak from a previous run
+        lastMatchTime = Double.NEGATIVE_INFINITY;
+        pendingArrivals.clear();
+        for (MsqServer server : servers) {
+            server.capacitaRimanente = server.capacita;
+            server.numRichiesteServite = 0;
+            server.svc = 0;
+        }
+    }
+
+    @Override
+    public void writeState(DataOutput out) throws IOException {
+        super.writeState(out);
+        out.writeBoolean(isEndOfArrivals);
+        out.writeDouble(lastMatchTime);
+        out.writeInt(pendingArrivals.size());
+        for (MsqEvent pending : pendingArrivals) {
+            out.writeDouble(pending.time);
+            out.writeInt(pending.postiRichiesti);
+        }
+        seatsStream.writeState(out);
+        busyMatchStream.writeState(out);
+        idleMatchStream.writeState(out);
+    }
+
+    @Override
+    public void readState(DataInput in) throws IOException {
+        super.readState(in);
+        isEndOfArrivals = in.readBoolean();
+        lastMatchTime = in.readDouble();
+        pendingArrivals.clear();
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            MsqEvent pending = new MsqEvent(EventType.ARRIVAL_RIDE_CENTER, in.readDouble());
+            pending.postiRichiesti = in.readInt();
+            pendingArrivals.add(pending);
+        }
+        seatsStream.readState(in);
+        busyMatchStream.readState(in);
+        idleMatchStream.readState(in);
+    }
+
+    // binds a restored completion event to its car, so that later matches reschedule it
+    public void bindCompletion(int serverId, int handle) {
+        servers[serverId].completionHandle = handle;
     }
 
     public void setStop(double stop) {
@@ -100,26 +186,21 @@ public class RideCenter extends MultiServer{
     }
 
     public double getArrival() {
-        ConfigurationManager config = new ConfigurationManager();
-        rngs.selectStream(streamIndex + 1);
-        sarrival += exponential(config.getDouble("general", "interArrivalTime"), rngs);
-        return sarrival;
+        return arrivals.next();
     }
 
+    @Override
     public void generateNextArrival(EventQueue queue) {
         double time = getArrival();
         if (time > STOP) {
             isEndOfArrivals = true;
         } else {
-            MsqEvent event = new MsqEvent(EventType.ARRIVAL_RIDE_CENTER, time);
-            event.postiRichiesti = getNumPosti();
-            queue.add(event);
+            queue.addArrival(EventType.ARRIVAL_RIDE_CENTER, time, getNumPosti());
         }
     }
 
     @Override
     public void processArrival(MsqEvent arrival, MsqTime time, EventQueue queue){
-        System.out.printf("[DEBUG][RideCenter.processArrival] time=%.3f, postiRichiesti=%d%n", arrival.time, arrival.postiRichiesti);
         // increment the number of jobs in the node
         numberOfJobsInNode++;
 
@@ -129,17 +210,18 @@ public class RideCenter extends MultiServer{
         }
         lastArrivalTime = arrival.time;
 
-        pendingArrivals.add(arrival);
+        // the popped arrival goes back to the pool after processing: keep a copy of it
+        MsqEvent pending = queue.acquire(EventType.ARRIVAL_RIDE_CENTER, arrival.time);
+        pending.postiRichiesti = arrival.postiRichiesti;
+        pendingArrivals.add(pending);
         // se sono passati abbastanza secondi, faccio il matching su tutta la coda
         if (lastMatchTime == Double.NEGATIVE_INFINITY) {
             // primo matching: sincronizzo lastMatchTime al primo arrivo
             lastMatchTime = arrival.time;
         }
 
-        System.out.println("[DEBUG][RideCenter.processArrival] pendingArrivals.size()=" + pendingArrivals.size());
         // se ho superato l'intervallo
         if (arrival.time >= lastMatchTime + matchInterval) {
-            System.out.printf("[DEBUG][RideCenter.processArrival] avvio doMatching, lastMatchTime=%.3f%n", lastMatchTime);
             doMatching(time, queue);
             // aggiorno lastMatchTime per il prossimo ciclo
             lastMatchTime += matchInterval;
@@ -147,10 +229,8 @@ public class RideCenter extends MultiServer{
     }
 
     private void doMatching(MsqTime time, EventQueue queue) {
-        System.out.println("[DEBUG][RideCenter.doMatching] start");
         while (true) {
             int matched = findOne(time, queue);
-            System.out.println("[DEBUG][RideCenter.doMatching] matched=" + matched + ", pending=" + pendingArrivals.size());
             if (matched == 0) {
                 if (!pendingArrivals.isEmpty()) {
                     numberOfJobsInNode --;
@@ -160,7 +240,6 @@ public class RideCenter extends MultiServer{
                 break;
             }
         }
-        System.out.println("[DEBUG][RideCenter.doMatching] end");
     }
 
     private void generateFeedback(MsqEvent oldEvent, EventQueue queue) {
@@ -174,14 +253,15 @@ public class RideCenter extends MultiServer{
             nextType = ARRIVAL_LARGE_CENTER;
         }
         // crea un nuovo evento di arrivo
-        MsqEvent fb = new MsqEvent(nextType, oldEvent.time);
+        MsqEvent fb = queue.acquire(nextType, oldEvent.time);
         fb.postiRichiesti = oldEvent.postiRichiesti;
+        fb.isFeedback = true;
+        queue.release(oldEvent);
         queue.add(fb);
     }
 
     @Override
     public int findOne(MsqTime time, EventQueue queue) {
-        System.out.println("[DEBUG][RideCenter.findOne] attempt match");
         if (pendingArrivals.isEmpty()) return 0;
 
         // 1. Prendo la PRIMA richiesta in coda
@@ -191,11 +271,10 @@ public class RideCenter extends MultiServer{
         int bestActive = -1;
         double bestCapActive = -1;
 
-        rngs.selectStream(3);
         for (int i = 0; i < SERVERS; i++) {
             if (servers[i].running
                     && servers[i].capacitaRimanente >= firstReq.postiRichiesti
-                    && rngs.random() < p_match_busy /*indica la probabilità che sto nel percorso giusto*/
+                    && busyMatchStream.random() < p_match_busy /*indica la probabilità che sto nel percorso giusto*/
                     && servers[i].capacitaRimanente > bestCapActive) {
                 bestCapActive = servers[i].capacitaRimanente;
                 bestActive = i;
@@ -203,27 +282,24 @@ public class RideCenter extends MultiServer{
         }
 
         if (bestActive != -1) {
-            System.out.println("[DEBUG][RideCenter.findOne] bestActive=" + bestActive);
             // 2.a Assegno *solo* la prima richiesta a questo server
             spawnCompletionEvent(time, queue, bestActive, firstReq);
-            pendingArrivals.poll();
+            queue.release(pendingArrivals.poll());
             return 1;
         }
 
         // 3. FALLBACK interno: best‑fit tra server *inattivi*
         int bestIdle = -1; double bestCapIdle = -1;
-        rngs.selectStream(4);
         for (int i = 0; i < SERVERS; i++) {
             if (!servers[i].running
                     && servers[i].capacitaRimanente >= firstReq.postiRichiesti
-                    && rngs.random() < p_match_idle
+                    && idleMatchStream.random() < p_match_idle
                     && servers[i].capacitaRimanente > bestCapIdle) {
                 bestCapIdle = servers[i].capacitaRimanente;
                 bestIdle = i;
             }
         }
         if (bestIdle == -1) {
-            System.out.println("[DEBUG][RideCenter.findOne] no match found");
             return 0;  // né attivi né inattivi hanno accettato
         }
 
@@ -238,18 +314,18 @@ public class RideCenter extends MultiServer{
             if (req.postiRichiesti <= servers[bestIdle].capacitaRimanente) {
                 spawnCompletionEvent(time, queue, bestIdle, firstReq);
                 it.remove();
+                queue.release(req);
                 totalMatched++;
                 if (servers[bestIdle].capacitaRimanente == 0) break;
             }
         }
+        queue.release(firstReq);
         return totalMatched; //totale di richieste matchate
     }
 
     //da rivedere
     @Override
     public void processCompletion(MsqEvent completion, MsqTime time, EventQueue queue) {
-        System.out.printf("[DEBUG][RideCenter.processCompletion] server=%d, servizio=%.3f, jobsServed=%d%n",
-                completion.serverId, completion.service, servers[completion.serverId].numRichiesteServite);
         numberOfJobsInNode -= servers[completion.serverId].numRichiesteServite;
 
         if(!isDone()){
@@ -262,7 +338,6 @@ public class RideCenter extends MultiServer{
         sum[serverId].served++;
         lastCompletionTime = completion.time;
         if (!warmup && jobServedPerBatch == batchSize) {
-            System.out.println("[DEBUG][RideCenter.processCompletion] batch completato: jobServedPerBatch=" + jobServedPerBatch);
             saveBatchStats(time);
             saveBatchStats(time);
         }
@@ -273,6 +348,7 @@ public class RideCenter extends MultiServer{
         if(!isBatch || (!warmup && !isDone())) totJobs += servers[completion.serverId].numRichiesteServite;
 
         //resetto lo stato
+        servers[completion.serverId].completionHandle = EventList.NO_HANDLE;
         servers[completion.serverId].numRichiesteServite = 0;
         servers[completion.serverId].running = false;
         servers[completion.serverId].svc = 0;
@@ -280,11 +356,6 @@ public class RideCenter extends MultiServer{
     }
 
     public int getNumPosti() {
-        rngs.selectStream(4);
-        double r = rngs.random();
-        if (r < 0.4) return 1;
-        if (r < 0.7) return 2;
-        if (r < 0.9) return 3;
-        return 4;
+        return (int) seats.sample(seatsStream);
     }
 }
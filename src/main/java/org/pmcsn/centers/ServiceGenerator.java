@@ -0,0 +1,60 @@
+package org.pmcsn.centers;
+
+import org.pmcsn.libraries.RngStream;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+// Service times of a center produced in blocks from one of its streams: the uniforms of a block are
+// taken from the stream handle at once and turned into services by one block transform (Distributions,
+// Sampler.transform), so that the event loop takes a service already drawn instead of paying its log/exp.
+// Every service is the inversion of one uniform, in the order of the stream: the services are those that
+// as many calls of getService() on the stream would return. Not for the ziggurat (see MultiServer).
+public class ServiceGenerator {
+    public static final int BLOCK = 1024;
+
+    public interface Transform {
+        void apply(double[] values, int from, int to);
+    }
+
+    public final RngStream stream;
+    private final Transform transform;
+    private final double[] services = new double[BLOCK];
+    private int cursor = BLOCK;
+
+    public ServiceGenerator(RngStream stream, Transform transform) {
+        this.stream = stream;
+        this.transform = transform;
+    }
+
+    public double next() {
+        if (cursor == BLOCK) {
+            stream.fill(services, 0, BLOCK);
+            transform.apply(services, 0, BLOCK);
+            cursor = 0;
+        }
+        return services[cursor++];
+    }
+
+    // the services drawn ahead are part of the state: the stream has already moved past them
+    public void writeState(DataOutput out) throws IOException {
+        out.writeInt(cursor);
+        for (int i = cursor; i < BLOCK; i++) {
+            out.writeDouble(services[i]);
+        }
+        stream.writeState(out);
+    }
+
+    public void readState(DataInput in) throws IOException {
+        int c = in.readInt();
+        if (c < 0 || c > BLOCK) {
+            throw new IOException("Invalid service buffer position: " + c);
+        }
+        cursor = c;
+        for (int i = cursor; i < BLOCK; i++) {
+            services[i] = in.readDouble();
+        }
+        stream.readState(in);
+    }
+}
@@ -1,51 +1,89 @@
 package org.pmcsn.centers;
 
-import org.pmcsn.configuration.ConfigurationManager;
+import org.pmcsn.libraries.RngStream;
 import org.pmcsn.libraries.Rngs;
+import org.pmcsn.libraries.StreamRegistry;
 import org.pmcsn.model.*;
+import org.pmcsn.utils.TruncatedNormalSampler;
+import org.pmcsn.utils.Ziggurat;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Queue;
 
 import static org.pmcsn.utils.Distributions.*;
 
-public class SimpleCenter extends MultiServer{
-    private final double sigma;
-    private final double truncationPoint;
-    private double sarrival;
+public final class SimpleCenter extends MultiServer{
+    private final TruncatedNormalSampler serviceSampler;
     private double STOP = Double.POSITIVE_INFINITY;
     private boolean isEndOfArrivals = false;
     public int feedback = 0;
+    private final EventType arrivalType;
+    private final EventType completionType;
+    // services of the jobs in the node not yet in service (common random numbers only)
+    private final Queue<Double> pendingServices = new ArrayDeque<>();
+    // services of the feedback jobs of the improved model (common random numbers only)
+    private final int feedbackStreamIndex;
+    private ServiceGenerator feedbackServices;
+
+
+    public SimpleCenter(String centerName, double meanServiceTime, TruncatedNormalSampler serviceSampler, int serversNumber, int streamIndex, StreamRegistry streams, int node, boolean approximateServiceAsExponential, boolean isBatch, int batchSize, int numBatches) {
+        super(centerName, meanServiceTime, serversNumber, streamIndex, streams, approximateServiceAsExponential, isBatch, batchSize, numBatches);
+        this.serviceSampler = serviceSampler;
+        this.arrivalType = EventType.of(node, EventType.ARRIVAL);
+        this.completionType = EventType.of(node, EventType.COMPLETION);
+        this.feedbackStreamIndex = allocateStream("feedback", FEEDBACK_STREAM);
+    }
 
+    @Override
+    public void registerHandlers(EventDispatcher dispatcher) {
+        dispatcher.register(arrivalType.node, this);
+    }
 
-    public SimpleCenter(String centerName, double meanServiceTime, double sigma, double truncationPoint, int serversNumber, int streamIndex, boolean approximateServiceAsExponential, boolean isBatch, int batchSize, int numBatches) {
-        super(centerName, meanServiceTime, serversNumber, streamIndex, approximateServiceAsExponential, isBatch, batchSize, numBatches);
-        this.sigma = sigma;
-        this.truncationPoint = truncationPoint;
+    @Override
+    public void processArrival(MsqEvent arrival, MsqTime time, EventQueue queue) {
+        if (commonRandomNumbers) {
+            // the service is bound to the job when it arrives, so that the feedback jobs of the
+            // improved model (own stream) do not shift the services of the exogenous ones;
+            // jobs are served FIFO, so the services are consumed in the order they are drawn
+            pendingServices.add(nextService(arrival.isFeedback ? feedbackServices : services));
+        }
+        super.processArrival(arrival, time, queue);
     }
 
     @Override
     public void spawnCompletionEvent(MsqTime time, EventQueue queue, int serverId, MsqEvent currEvent) {
-        double service = getService(streamIndex);
+        double service = commonRandomNumbers ? pendingServices.poll() : nextService(services);
         //generate a new completion event
-        MsqEvent event = null;
-        switch (currEvent.type){
-            case ARRIVAL_SMALL_CENTER, COMPLETION_SMALL_CENTER -> event = new MsqEvent(EventType.COMPLETION_SMALL_CENTER, time.current + service, service, serverId);
-            case ARRIVAL_MEDIUM_CENTER, COMPLETION_MEDIUM_CENTER -> event = new MsqEvent(EventType.COMPLETION_MEDIUM_CENTER, time.current + service, service, serverId);
-            case ARRIVAL_LARGE_CENTER, COMPLETION_LARGE_CENTER -> event = new MsqEvent(EventType.COMPLETION_LARGE_CENTER, time.current + service, service, serverId);
-        }
-        queue.add(event);
+        queue.add(queue.acquire(completionType, time.current + service, service, serverId));
     }
 
     @Override
-    double getService(int streamIndex) {
-        rngs.selectStream(streamIndex);
+    double getService(RngStream stream) {
         double serviceTime;
         if(approximateServiceAsExponential){
-            serviceTime = exponential(meanServiceTime, rngs);
+            serviceTime = ziggurat ? meanServiceTime * Ziggurat.exponential(stream) : exponential(meanServiceTime, stream);
+        } else if (serviceHistogram != null) {
+            serviceTime = serviceHistogram.sample(stream);
         } else {
-            serviceTime = truncatedNormal(meanServiceTime, sigma, truncationPoint, rngs);
+            serviceTime = ziggurat ? serviceSampler.sampleZiggurat(stream) : serviceSampler.sample(stream);
         }
         return serviceTime;
     }
 
+    @Override
+    void transformServices(double[] values, int from, int to) {
+        if (approximateServiceAsExponential) {
+            exponential(meanServiceTime, values, from, to);
+        } else if (serviceHistogram != null) {
+            serviceHistogram.transform(values, from, to);
+        } else {
+            serviceSampler.transform(values, from, to);
+        }
+    }
+
     @Override
     public void processCompletion(MsqEvent completion, MsqTime time, EventQueue queue) {
         super.processCompletion(completion, time, queue);
@@ -61,8 +99,35 @@ public class SimpleCenter extends MultiServer{
 
     public void start(Rngs rngs, double sarrival){
         this.rngs = rngs;
-        this.sarrival = sarrival;
         reset(rngs);
+        arrivals.reset(rngs, sarrival, ziggurat);
+        feedbackServices = new ServiceGenerator(new RngStream(rngs, feedbackStreamIndex), this::transformServices);
+        pendingServices.clear();
+    }
+
+    @Override
+    public void writeState(DataOutput out) throws IOException {
+        super.writeState(out);
+        out.writeInt(feedback);
+        out.writeBoolean(isEndOfArrivals);
+        out.writeInt(pendingServices.size());
+        for (double service : pendingServices) {
+            out.writeDouble(service);
+        }
+        feedbackServices.writeState(out);
+    }
+
+    @Override
+    public void readState(DataInput in) throws IOException {
+        super.readState(in);
+        feedback = in.readInt();
+        isEndOfArrivals = in.readBoolean();
+        pendingServices.clear();
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            pendingServices.add(in.readDouble());
+        }
+        feedbackServices.readState(in);
     }
 
     public void setStop(double stop) {
@@ -70,24 +135,16 @@ public class SimpleCenter extends MultiServer{
     }
 
     public double getArrival() {
-        ConfigurationManager config = new ConfigurationManager();
-        rngs.selectStream(streamIndex + 1);
-        sarrival += exponential(config.getDouble("general", "interArrivalTime"), rngs);
-        return sarrival;
+        return arrivals.next();
     }
 
-    public void generateNextArrival(EventQueue queue, EventType arrivalType) {
+    @Override
+    public void generateNextArrival(EventQueue queue) {
         double time = getArrival();
         if (time > STOP) {
             isEndOfArrivals = true;
         } else {
-            MsqEvent event = null;
-            switch (arrivalType){
-                case ARRIVAL_SMALL_CENTER -> event = new MsqEvent(EventType.ARRIVAL_SMALL_CENTER, time);
-                case ARRIVAL_MEDIUM_CENTER -> event = new MsqEvent(EventType.ARRIVAL_MEDIUM_CENTER, time);
-                case ARRIVAL_LARGE_CENTER -> event = new MsqEvent(EventType.ARRIVAL_LARGE_CENTER, time);
-            }
-            queue.add(event);
+            queue.addArrival(arrivalType, time);
         }
     }
 }
@@ -1,15 +1,30 @@
 package org.pmcsn.configuration;
 
 import org.pmcsn.centers.*;
+import org.pmcsn.libraries.StreamRegistry;
+import org.pmcsn.model.EventType;
+import org.pmcsn.utils.*;
+
+import java.util.HashMap;
+import java.util.Map;
 
 public class CenterFactory {
     private final ConfigurationManager configurationManager = new ConfigurationManager();
-    private static int batchSize;
-    private static int numBatches;
+    private final int batchSize;
+    private final int numBatches;
     private final boolean isImprovedSimulation;
+    private boolean commonRandomNumbers = configurationManager.getBoolean("general", "commonRandomNumbers");
+    // streams of all the centers built by this factory, as many as the generator of general.rngBackend
+    // has; the seed stream is never drawn
+    private final StreamRegistry streams = new StreamRegistry(new RngsFactory().createRngs().getStreams());
+    private final TruncatedNormalSampler.Inverse serviceInverse = serviceInverse();
+    // histograms parsed once and shared by every center built here: the samplers are immutable
+    private final Map<String, Sampler> serviceHistograms = serviceHistograms("smallCenter", "mediumCenter", "largeCenter", "rideCenter");
+    private final AliasSampler seats = seats();
 
     public CenterFactory(boolean isImprovedSimulation) {
         this.isImprovedSimulation = isImprovedSimulation;
+        streams.allocate("replication seeds", configurationManager.getInt("general", "seedStreamIndex"));
         ConfigurationManager config = new ConfigurationManager();
         if (isImprovedSimulation) {
             batchSize = config.getInt("general", "batchSizeImproved");
@@ -20,6 +35,14 @@ public class CenterFactory {
         }
     }
 
+    // centers collecting a different number of batches, e.g. the trajectories of replicated batch means
+    public CenterFactory(boolean isImprovedSimulation, int batchSize, int numBatches) {
+        this.isImprovedSimulation = isImprovedSimulation;
+        streams.allocate("replication seeds", configurationManager.getInt("general", "seedStreamIndex"));
+        this.batchSize = batchSize;
+        this.numBatches = numBatches;
+    }
+
 
     public SimpleCenter createSmallCenter(boolean approximateServiceAsExponential, boolean isBatch) {
         int serversNumber;
@@ -37,17 +60,18 @@ public class CenterFactory {
             sigma = configurationManager.getDouble("smallCenter", "sigma");
             truncationPoint = configurationManager.getDouble("smallCenter", "truncationPoint");
         }
-        return new SimpleCenter(
+        return configure("smallCenter", new SimpleCenter(
                 configurationManager.getString("smallCenter", "centerName"),
                 meanServiceTime,
-                sigma,
-                truncationPoint,
+                serviceSampler(meanServiceTime, sigma, truncationPoint),
                 serversNumber,
                 configurationManager.getInt("smallCenter", "streamIndex"),
+                streams,
+                EventType.ARRIVAL_SMALL_CENTER.node,
                 approximateServiceAsExponential,
                 isBatch,
                 batchSize,
-                numBatches);
+                numBatches));
     }
 
 
@@ -67,17 +91,18 @@ public class CenterFactory {
             sigma = configurationManager.getDouble("mediumCenter", "sigmaImproved");
             truncationPoint = configurationManager.getDouble("mediumCenter", "truncationPoint");
         }
-        return new SimpleCenter(
+        return configure("mediumCenter", new SimpleCenter(
                 configurationManager.getString("mediumCenter", "centerName"),
                 meanServiceTime,
-                sigma,
-                truncationPoint,
+                serviceSampler(meanServiceTime, sigma, truncationPoint),
                 serversNumber,
                 configurationManager.getInt("mediumCenter", "streamIndex"),
+                streams,
+                EventType.ARRIVAL_MEDIUM_CENTER.node,
                 approximateServiceAsExponential,
                 isBatch,
                 batchSize,
-                numBatches);
+                numBatches));
     }
 
 
@@ -97,17 +122,18 @@ public class CenterFactory {
             sigma = configurationManager.getDouble("largeCenter", "sigmaImproved");
             truncationPoint = configurationManager.getDouble("largeCenter", "truncationPoint");
         }
-        return new SimpleCenter(
+        return configure("largeCenter", new SimpleCenter(
                 configurationManager.getString("largeCenter", "centerName"),
                 meanServiceTime,
-                sigma,
-                truncationPoint,
+                serviceSampler(meanServiceTime, sigma, truncationPoint),
                 serversNumber,
                 configurationManager.getInt("largeCenter", "streamIndex"),
+                streams,
+                EventType.ARRIVAL_LARGE_CENTER.node,
                 approximateServiceAsExponential,
                 isBatch,
                 batchSize,
-                numBatches);
+                numBatches));
     }
 
     public RideCenter createRideCenter(boolean approximateServiceAsExponential, boolean isBatch) {
@@ -134,22 +160,110 @@ public class CenterFactory {
         p_match_idle = configurationManager.getInt("rideCenter", "pMatchIdle");
 
 
-        return new RideCenter(
+        return configure("rideCenter", new RideCenter(
                 configurationManager.getString("rideCenter", "centerName"),
                 meanServiceTime,
-                sigma,
-                truncationPoint,
+                serviceSampler(meanServiceTime, sigma, truncationPoint),
                 serversNumber,
                 smallServers,
                 mediumServers,
                 largeServers,
                 configurationManager.getInt("rideCenter", "streamIndex"),
+                streams,
                 approximateServiceAsExponential,
                 isBatch,
                 batchSize,
                 numBatches,
                 matchInterval,
                 p_match_busy,
-                p_match_idle);
+                p_match_idle,
+                seats));
+    }
+
+    public void setCommonRandomNumbers(boolean commonRandomNumbers) {
+        this.commonRandomNumbers = commonRandomNumbers;
+    }
+
+    private TruncatedNormalSampler serviceSampler(double meanServiceTime, double sigma, double truncationPoint) {
+        return new TruncatedNormalSampler(meanServiceTime, sigma, truncationPoint, serviceInverse);
+    }
+
+    private TruncatedNormalSampler.Inverse serviceInverse() {
+        String name = configurationManager.getString("general", "serviceInverse");
+        return switch (name) {
+            case "newton" -> TruncatedNormalSampler.Inverse.NEWTON;
+            case "as241" -> TruncatedNormalSampler.Inverse.AS241;
+            default -> throw new IllegalArgumentException("Invalid inverse for key: general.serviceInverse (" + name + ")");
+        };
+    }
+
+    private <T extends MultiServer> T configure(String section, T center) {
+        center.setCommonRandomNumbers(commonRandomNumbers);
+        center.setVariates(variates(section));
+        center.setServiceHistogram(serviceHistograms.get(section));
+        return center;
+    }
+
+    private Map<String, Sampler> serviceHistograms(String... sections) {
+        Map<String, Sampler> histograms = new HashMap<>();
+        for (String section : sections) {
+            histograms.put(section, serviceHistogram(section));
+        }
+        return histograms;
+    }
+
+    // a Cdh histogram gives continuous service times, a Ddh one discrete service times
+    private Sampler serviceHistogram(String section) {
+        String location = configurationManager.getString(section, "serviceHistogram");
+        if (location.isEmpty()) {
+            return null;
+        }
+        Histogram histogram = Histogram.read(location);
+        return histogram.continuous ? EmpiricalSampler.of(histogram) : AliasSampler.of(histogram);
+    }
+
+    // seats of the ride arrivals: a Ddh histogram if given, else the probabilities of 1, 2, ... seats
+    private AliasSampler seats() {
+        String location = configurationManager.getString("rideCenter", "seatsHistogram");
+        double[] values;
+        double[] weights;
+        if (!location.isEmpty()) {
+            Histogram histogram = Histogram.read(location);
+            if (histogram.continuous) {
+                throw new IllegalArgumentException("Invalid seats for key: rideCenter.seatsHistogram (continuous data)");
+            }
+            values = histogram.values;
+            weights = new double[values.length];
+            for (int i = 0; i < values.length; i++) {
+                weights[i] = histogram.counts[i];
+            }
+        } else {
+            String[] probabilities = configurationManager.getString("rideCenter", "seatsProbabilities").split(",");
+            values = new double[probabilities.length];
+            weights = new double[probabilities.length];
+            for (int i = 0; i < probabilities.length; i++) {
+                values[i] = i + 1;
+                try {
+                    weights[i] = Double.parseDouble(probabilities[i].trim());
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid double value for key: rideCenter.seatsProbabilities", e);
+                }
+            }
+        }
+        for (double value : values) {
+            if (value != Math.rint(value) || value < 1 || value > RideCenter.MAX_SEATS) {
+                throw new IllegalArgumentException("Invalid seats for key: rideCenter.seats (" + value + ")");
+            }
+        }
+        return new AliasSampler(values, weights);
+    }
+
+    private VariateMethod variates(String section) {
+        String name = configurationManager.getString(section, "variates");
+        return switch (name) {
+            case "inversion" -> VariateMethod.INVERSION;
+            case "ziggurat" -> VariateMethod.ZIGGURAT;
+            default -> throw new IllegalArgumentException("Invalid variates for key: " + section + ".variates (" + name + ")");
+        };
     }
 }
@@ -2,7 +2,12 @@ package org.pmcsn.configuration;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.Properties;
+import java.util.TreeSet;
 
 public class ConfigurationManager {
     private final Properties properties = new Properties();
@@ -61,5 +66,24 @@ public class ConfigurationManager {
             throw new IllegalArgumentException("Invalid double value for key: " + section + "." + key, e);
         }
     }
-}
 
+    // SHA-256 of the sorted settings, except the keys starting with one of the excluded prefixes:
+    // two runs with the same fingerprint simulate the same model
+    public String fingerprint(String... excludedPrefixes) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            keys:
+            for (String key : new TreeSet<>(properties.stringPropertyNames())) {
+                for (String prefix : excludedPrefixes) {
+                    if (key.startsWith(prefix)) {
+                        continue keys;
+                    }
+                }
+                digest.update((key + "=" + properties.getProperty(key) + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package org.pmcsn.configuration;
+
+import org.pmcsn.model.*;
+
+public class EventQueueFactory {
+    private final ConfigurationManager configurationManager = new ConfigurationManager();
+
+    public EventQueue createEventQueue() {
+        return new EventQueue(createEventList());
+    }
+
+    public EventList createEventList() {
+        String impl = configurationManager.getString("general", "eventQueueImpl");
+        if (configurationManager.getBoolean("general", "eventQueuePerCenter")) {
+            return new PartitionedEventList(EventType.NODES, pool -> createEventList(impl, pool));
+        }
+        return createEventList(impl, new MsqEventPool());
+    }
+
+    private EventList createEventList(String impl, MsqEventPool pool) {
+        return switch (impl) {
+            case "priorityQueue" -> new PriorityQueueEventList(pool);
+            case "heap" -> new DaryHeapEventList(64, pool);
+            case "calendar" -> new CalendarEventList(2, 1.0, pool);
+            default -> throw new IllegalArgumentException("Invalid event queue implementation for key: general.eventQueueImpl (" + impl + ")");
+        };
+    }
+}
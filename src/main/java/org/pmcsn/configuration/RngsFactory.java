@@ -0,0 +1,26 @@
+package org.pmcsn.configuration;
+
+import org.pmcsn.libraries.Mrg32k3a;
+import org.pmcsn.libraries.Rngs;
+import org.pmcsn.libraries.SplittableBackend;
+
+public class RngsFactory {
+    private final String backend;
+
+    public RngsFactory() {
+        this.backend = new ConfigurationManager().getString("general", "rngBackend");
+    }
+
+    public String getBackend() {
+        return backend;
+    }
+
+    public Rngs createRngs() {
+        return switch (backend) {
+            case "lehmer" -> new Rngs();
+            case "mrg32k3a" -> new Rngs(new Mrg32k3a());
+            case "l64x128" -> new Rngs(new SplittableBackend(SplittableBackend.DEFAULT_ALGORITHM));
+            default -> throw new IllegalArgumentException("Invalid random number generator for key: general.rngBackend (" + backend + ")");
+        };
+    }
+}
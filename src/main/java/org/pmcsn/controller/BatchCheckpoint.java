@@ -0,0 +1,78 @@
+package org.pmcsn.controller;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+// Binary checkpoint of a long batch-means run. The file holds a header naming the scenario
+// (simulation type, seed, batch parameters and a fingerprint of the configuration) followed by the engine state written by the
+// runner; it is written to a temporary file and renamed over the previous one, so a crash in the
+// middle of a save leaves the last complete checkpoint in place.
+public class BatchCheckpoint {
+    private static final int MAGIC = 0x504d4353;
+    private static final int VERSION = 5;
+
+    @FunctionalInterface
+    public interface StateWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface StateReader {
+        void read(DataInputStream in) throws Exception;
+    }
+
+    private final Path file;
+    private final String scenario;
+
+    public BatchCheckpoint(Path file, String scenario) {
+        this.file = file;
+        this.scenario = scenario;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public void save(StateWriter writer) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(scenario);
+            writer.write(out);
+            // end marker: a truncated file is never taken for a checkpoint
+            out.writeInt(MAGIC);
+        }
+        Files.move(tmp, file, ATOMIC_MOVE, REPLACE_EXISTING);
+    }
+
+    // reads the checkpoint back into the runner, false if there is none
+    public boolean load(StateReader reader) throws Exception {
+        if (!Files.exists(file)) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a checkpoint: " + file);
+            }
+            String saved = in.readUTF();
+            if (!saved.equals(scenario)) {
+                throw new IOException("Checkpoint " + file + " is of another scenario (" + saved + ")");
+            }
+            reader.read(in);
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Corrupted checkpoint: " + file);
+            }
+        }
+        return true;
+    }
+
+    public void delete() throws IOException {
+        Files.deleteIfExists(file);
+    }
+}
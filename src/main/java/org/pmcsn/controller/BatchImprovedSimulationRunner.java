@@ -2,10 +2,17 @@ package org.pmcsn.controller;
 
 import org.pmcsn.centers.*;
 import org.pmcsn.configuration.CenterFactory;
+import org.pmcsn.configuration.ConfigurationManager;
+import org.pmcsn.configuration.EventQueueFactory;
+import org.pmcsn.configuration.RngsFactory;
 import org.pmcsn.libraries.Rngs;
 import org.pmcsn.model.*;
 import org.pmcsn.utils.*;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Stream;
@@ -24,6 +31,7 @@ public class BatchImprovedSimulationRunner {
     private final long seed;
 
     // Centri
+    private EventDispatcher dispatcher;
     private SimpleCenter largeCenter;
     private SimpleCenter mediumCenter;
     private SimpleCenter smallCenter;
@@ -44,6 +52,20 @@ public class BatchImprovedSimulationRunner {
     private final int intervalLength;
     EventQueue events = null;
 
+    // Engine state between two events, saved in the checkpoints
+    private Rngs rngs;
+    private final MsqTime msqTime = new MsqTime();
+    private final MsqTime currentTime = new MsqTime();
+    private SamplingClock samplingClock;
+    private boolean stopWarmup = false;
+    private long processedEvents = 0;
+    // a checkpoint every checkpointEvents events, 0 to disable them
+    private final long checkpointEvents;
+    private final String checkpointDir;
+    // the settings the trajectory depends on, i.e. all of them but where and how often to checkpoint
+    private final String configFingerprint;
+    private final RngsFactory rngsFactory = new RngsFactory();
+
     public BatchImprovedSimulationRunner(int batchSize, int numBatches, int warmupThreshold) {
         this(batchSize, numBatches, warmupThreshold, 123456789L, 20);
     }
@@ -54,6 +76,10 @@ public class BatchImprovedSimulationRunner {
         this.warmupThreshold = warmupThreshold;
         this.seed = seed;
         this.intervalLength = intervalLength;
+        ConfigurationManager config = new ConfigurationManager();
+        this.checkpointEvents = config.getInt("general", "checkpointEvents");
+        this.checkpointDir = config.getString("general", "checkpointDir");
+        this.configFingerprint = config.fingerprint("general.checkpoint");
     }
 
     public void runBatchSimulation(boolean approximateServiceAsExponential) throws Exception {
@@ -63,50 +89,57 @@ public class BatchImprovedSimulationRunner {
         printDebug("\nRUNNING " + simulationType + "...");
 
         // Rng setting the seed
-        Rngs rngs = new Rngs();
+        rngs = rngsFactory.createRngs();
         rngs.plantSeeds(seed);
 
         String observationsPath = "csvFiles/%s/%d/observations".formatted(simulationType, seed);
         initObservations(observationsPath);
 
         // Initialize MsqTime
-        MsqTime msqTime = new MsqTime();
         msqTime.current = START;
-        events = new FiniteSimulationEventQueue(intervalLength);
+        events = new EventQueueFactory().createEventQueue();
+        samplingClock = new SamplingClock();
+        samplingClock.register(intervalLength, t -> {
+            if (!isWarmingUp) {
+                smallCenter.updateObservations(smallCenterObservation);
+                mediumCenter.updateObservations(mediumCenterObservation);
+                largeCenter.updateObservations(largeCenterObservation);
+                rideCenter.updateObservations(rideCenterObservation);
+
+                System.out.printf("[DEBUG] Batches raccolti: small=%d, medium=%d, large=%d, ride=%d%n",
+                        smallCenterObservation.size(),
+                        mediumCenterObservation.size(),
+                        largeCenterObservation.size(),
+                        rideCenterObservation.size()
+                );
+            }
+        });
 
         resetCenters(rngs, events);
 
-        boolean stopWarmup = false;
+        // picking up an interrupted run where its last checkpoint left it
+        BatchCheckpoint checkpoint = new BatchCheckpoint(
+                Path.of(checkpointDir, simulationType, seed + ".bin"),
+                "%s seed=%d batchSize=%d numBatches=%d warmupThreshold=%d intervalLength=%d rng=%s config=%s".formatted(simulationType, seed, batchSize, numBatches, warmupThreshold, intervalLength, rngs.getBackendName(), configFingerprint));
+        if (checkpoint.load(this::readState)) {
+            printSuccess("RESUMING FROM CHECKPOINT " + checkpoint.getFile() + " at time " + msqTime.current);
+        }
 
         // the terminating condition is that all the centers have processed all the jobs
         while(!isDone()) {
             System.out.println("[DEBUG] Ciclo loop principale: isDone() = " + isDone());
+            // Sampling the observations due before the next event
+            samplingClock.advanceTo(events.peekTime());
+
             // Retrieving next event to be processed
             MsqEvent event = events.pop();
             System.out.println("[DEBUG] Evento processato: " + event);
-            if (event.type == EventType.SAVE_STAT) {
-                if (!isWarmingUp) {
-                    smallCenter.updateObservations(smallCenterObservation);
-                    mediumCenter.updateObservations(mediumCenterObservation);
-                    largeCenter.updateObservations(largeCenterObservation);
-                    rideCenter.updateObservations(rideCenterObservation);
-
-                    System.out.printf("[DEBUG] Batches raccolti: small=%d, medium=%d, large=%d, ride=%d%n",
-                            smallCenterObservation.size(),
-                            mediumCenterObservation.size(),
-                            largeCenterObservation.size(),
-                            rideCenterObservation.size()
-                    );
-                }
-                continue;
-            }
             msqTime.next = event.time;
 
             // Updating areas
             updateAreas(msqTime);
 
             // Advancing the clock
-            MsqTime currentTime = new MsqTime();
             currentTime.current = msqTime.current;
             // Advancing the clock
             msqTime.current = msqTime.next;
@@ -117,8 +150,8 @@ public class BatchImprovedSimulationRunner {
             }
 
             // Processing the event based on its type
-            processCurrentEvent(event, msqTime, events);
-
+            dispatcher.dispatch(event, msqTime, events);
+            events.release(event);
 
             // Checking if still in warmup period
             if (isWarmingUp && getMinimumNumberOfJobsServedByCenters() >= warmupThreshold ) {
@@ -126,7 +159,12 @@ public class BatchImprovedSimulationRunner {
                 isWarmingUp = false;
                 stopWarmup = true;
             }
+
+            if (checkpointEvents > 0 && ++processedEvents % checkpointEvents == 0) {
+                writeCheckpoint(checkpoint);
+            }
         }
+        checkpoint.delete();
 
         // The batch simulation has now ended. Time to collect the statistics
         printSuccess(simulationType + " HAS JUST FINISHED.");
@@ -146,6 +184,80 @@ public class BatchImprovedSimulationRunner {
         getBatchStatistics();
     }
 
+    private void writeCheckpoint(BatchCheckpoint checkpoint) throws Exception {
+        // the pending events are taken out of the queue to be written and put back in the same
+        // order, exactly as a resumed run restores them
+        List<MsqEvent> pending = events.drain();
+        try {
+            checkpoint.save(out -> writeState(out, pending));
+        } finally {
+            restoreEvents(pending);
+        }
+    }
+
+    private void writeState(DataOutputStream out, List<MsqEvent> pending) throws IOException {
+        rngs.writeState(out);
+        out.writeDouble(msqTime.current);
+        out.writeDouble(currentTime.current);
+        out.writeBoolean(isWarmingUp);
+        out.writeBoolean(stopWarmup);
+        out.writeLong(processedEvents);
+        samplingClock.writeState(out);
+        for (MultiServer center : List.of(smallCenter, mediumCenter, largeCenter, rideCenter)) {
+            center.writeState(out);
+        }
+        for (List<Observations> observations : List.of(smallCenterObservation, mediumCenterObservation, largeCenterObservation, rideCenterObservation)) {
+            for (Observations o : observations) {
+                o.writeState(out);
+            }
+        }
+        out.writeInt(pending.size());
+        for (MsqEvent event : pending) {
+            event.writeState(out);
+        }
+    }
+
+    // overwrites the state of a freshly started run
+    private void readState(DataInputStream in) throws Exception {
+        rngs.readState(in);
+        msqTime.current = in.readDouble();
+        currentTime.current = in.readDouble();
+        isWarmingUp = in.readBoolean();
+        stopWarmup = in.readBoolean();
+        processedEvents = in.readLong();
+        samplingClock.readState(in);
+        for (MultiServer center : List.of(smallCenter, mediumCenter, largeCenter, rideCenter)) {
+            center.readState(in);
+        }
+        for (List<Observations> observations : List.of(smallCenterObservation, mediumCenterObservation, largeCenterObservation, rideCenterObservation)) {
+            for (Observations o : observations) {
+                o.readState(in);
+            }
+        }
+        // the first arrivals scheduled by resetCenters() are in the checkpoint as well
+        for (MsqEvent event : events.drain()) {
+            events.release(event);
+        }
+        int size = in.readInt();
+        List<MsqEvent> pending = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            pending.add(MsqEvent.readState(in));
+        }
+        restoreEvents(pending);
+    }
+
+    private void restoreEvents(List<MsqEvent> pending) {
+        for (MsqEvent event : pending) {
+            // the cars of the ride center hold the handle of their pending completion
+            boolean rideCompletion = event.type == COMPLETION_RIDE_CENTER;
+            int serverId = event.serverId;
+            int handle = events.restore(event);
+            if (rideCompletion) {
+                rideCenter.bindCompletion(serverId, handle);
+            }
+        }
+    }
+
     private void initObservations(String path) {
         FileUtils.deleteDirectory(path);
         smallCenterObservation = new ArrayList<>();
@@ -198,39 +310,11 @@ public class BatchImprovedSimulationRunner {
         mediumCenter = factory.createMediumCenter(approximateServiceAsExponential, false);
         largeCenter = factory.createLargeCenter(approximateServiceAsExponential, false);
         rideCenter = factory.createRideCenter(approximateServiceAsExponential, false);
-    }
-
-    private void processCurrentEvent(MsqEvent event, MsqTime msqTime, EventQueue events) {
-        switch (event.type) {
-            case ARRIVAL_SMALL_CENTER:
-                smallCenter.processArrival(event, msqTime, events);
-                smallCenter.generateNextArrival(events, ARRIVAL_SMALL_CENTER);
-                break;
-            case COMPLETION_SMALL_CENTER:
-                smallCenter.processCompletion(event, msqTime, events);
-                break;
-            case ARRIVAL_MEDIUM_CENTER:
-                mediumCenter.processArrival(event, msqTime, events);
-                mediumCenter.generateNextArrival(events, ARRIVAL_MEDIUM_CENTER);
-                break;
-            case COMPLETION_MEDIUM_CENTER:
-                mediumCenter.processCompletion(event, msqTime, events);
-                break;
-            case ARRIVAL_LARGE_CENTER:
-                largeCenter.processArrival(event, msqTime, events);
-                largeCenter.generateNextArrival(events, ARRIVAL_LARGE_CENTER);
-                break;
-            case COMPLETION_LARGE_CENTER:
-                largeCenter.processCompletion(event, msqTime, events);
-                break;
-            case ARRIVAL_RIDE_CENTER:
-                rideCenter.processArrival(event, msqTime, events);
-                rideCenter.generateNextArrival(events);
-                break;
-            case COMPLETION_RIDE_CENTER:
-                rideCenter.processCompletion(event, msqTime, events);
-                break;
-        }
+        dispatcher = new EventDispatcher();
+        smallCenter.registerHandlers(dispatcher);
+        mediumCenter.registerHandlers(dispatcher);
+        largeCenter.registerHandlers(dispatcher);
+        rideCenter.registerHandlers(dispatcher);
     }
 
     private void modelVerification(String simulationType) {
@@ -267,10 +351,7 @@ public class BatchImprovedSimulationRunner {
     }
 
     private ConfidenceIntervals createConfidenceIntervals(BatchStatistics stats) {
-        return new ConfidenceIntervals(
-                stats.meanResponseTimeList, stats.meanQueueTimeList, stats.meanServiceTimeList,
-                stats.meanSystemPopulationList, stats.meanQueuePopulationList, stats.meanUtilizationList, stats.lambdaList
-        );
+        return new ConfidenceIntervals(stats);
     }
 
 
@@ -311,29 +392,25 @@ public class BatchImprovedSimulationRunner {
     }
 
     private void resetCenters(Rngs rngs, EventQueue events) {
-        smallCenter.reset(rngs);
+        smallCenter.start(rngs, START);
         //generating first arrival
         double time = smallCenter.getArrival();
-        MsqEvent firstEvent = new MsqEvent(ARRIVAL_SMALL_CENTER, time);
-        events.add(firstEvent);
+        events.addArrival(ARRIVAL_SMALL_CENTER, time);
 
-        mediumCenter.reset(rngs);
+        mediumCenter.start(rngs, START);
         //generating first arrival
         time = mediumCenter.getArrival();
-        firstEvent = new MsqEvent(ARRIVAL_MEDIUM_CENTER, time);
-        events.add(firstEvent);
+        events.addArrival(ARRIVAL_MEDIUM_CENTER, time);
 
-        largeCenter.reset(rngs);
+        largeCenter.start(rngs, START);
         //generating first arrival
         time = largeCenter.getArrival();
-        firstEvent = new MsqEvent(ARRIVAL_LARGE_CENTER, time);
-        events.add(firstEvent);
+        events.addArrival(ARRIVAL_LARGE_CENTER, time);
 
-        rideCenter.reset(rngs);
+        rideCenter.start(rngs, START);
         //generating first arrival
         time = rideCenter.getArrival();
-        firstEvent = new MsqEvent(ARRIVAL_RIDE_CENTER, time);
-        events.add(firstEvent);
+        events.addArrival(ARRIVAL_RIDE_CENTER, time);
     }
 
     private void writeObservations(String path) {
@@ -0,0 +1,152 @@
+package org.pmcsn.controller;
+
+import org.pmcsn.centers.SimpleCenter;
+import org.pmcsn.configuration.CenterFactory;
+import org.pmcsn.configuration.EventQueueFactory;
+import org.pmcsn.configuration.RngsFactory;
+import org.pmcsn.libraries.Rngs;
+import org.pmcsn.model.*;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.pmcsn.controller.FiniteReplication.createObservations;
+import static org.pmcsn.model.EventType.*;
+import static org.pmcsn.utils.PrintUtils.printSuccess;
+
+// A single batch-means trajectory of the base model: it warms up on its own and then collects
+// the batches of every center. Like FiniteReplication it owns its centers, Rngs and event queue,
+// so that independent trajectories can run concurrently.
+public class BatchReplication {
+    private static final RngsFactory rngsFactory = new RngsFactory();
+    private static final int START = 0;
+    private final int warmupThreshold;
+    private final int intervalLength;
+    private final EventQueueFactory eventQueueFactory;
+    private boolean isWarmingUp = true;
+
+    final SimpleCenter smallCenter;
+    final SimpleCenter mediumCenter;
+    final SimpleCenter largeCenter;
+    private final EventDispatcher dispatcher = new EventDispatcher();
+
+    final List<Observations> smallCenterObservation;
+    final List<Observations> mediumCenterObservation;
+    final List<Observations> largeCenterObservation;
+
+    public BatchReplication(CenterFactory factory, EventQueueFactory eventQueueFactory, boolean approximateServiceAsExponential, int warmupThreshold, int intervalLength) {
+        this.warmupThreshold = warmupThreshold;
+        this.intervalLength = intervalLength;
+        this.eventQueueFactory = eventQueueFactory;
+        smallCenter = factory.createSmallCenter(approximateServiceAsExponential, false);
+        mediumCenter = factory.createMediumCenter(approximateServiceAsExponential, false);
+        largeCenter = factory.createLargeCenter(approximateServiceAsExponential, false);
+        smallCenter.registerHandlers(dispatcher);
+        mediumCenter.registerHandlers(dispatcher);
+        largeCenter.registerHandlers(dispatcher);
+        smallCenterObservation = createObservations(smallCenter);
+        mediumCenterObservation = createObservations(mediumCenter);
+        largeCenterObservation = createObservations(largeCenter);
+    }
+
+    public BatchReplication run(long seed) throws Exception {
+        // Rng setting the seed
+        Rngs rngs = rngsFactory.createRngs();
+        rngs.plantSeeds(seed);
+
+        // Initialize MsqTime
+        MsqTime msqTime = new MsqTime();
+        msqTime.current = START;
+        EventQueue events = eventQueueFactory.createEventQueue();
+        SamplingClock samplingClock = new SamplingClock();
+        samplingClock.register(intervalLength, t -> {
+            if (!isWarmingUp) {
+                smallCenter.updateObservations(smallCenterObservation);
+                mediumCenter.updateObservations(mediumCenterObservation);
+                largeCenter.updateObservations(largeCenterObservation);
+            }
+        });
+
+        resetCenters(rngs, events);
+
+        boolean stopWarmup = false;
+        MsqTime currentTime = new MsqTime();
+
+        // the terminating condition is that all the centers have processed all the jobs
+        while(!isDone()) {
+            // Sampling the observations due before the next event
+            samplingClock.advanceTo(events.peekTime());
+
+            // Retrieving next event to be processed
+            MsqEvent event = events.pop();
+            msqTime.next = event.time;
+
+            // Updating areas
+            updateAreas(msqTime);
+
+            currentTime.current = msqTime.current;
+            // Advancing the clock
+            msqTime.current = msqTime.next;
+
+            if (stopWarmup) {
+                stopWarmup(currentTime);
+                stopWarmup = false;
+            }
+
+            // Processing the event based on its type
+            dispatcher.dispatch(event, msqTime, events);
+            events.release(event);
+
+            // Checking if still in warmup period
+            if (isWarmingUp && getMinimumNumberOfJobsServedByCenters() >= warmupThreshold ) {
+                printSuccess("WARMUP COMPLETED... Starting to collect statistics for centers from now on.");
+                isWarmingUp = false;
+                stopWarmup = true;
+            }
+        }
+        return this;
+    }
+
+    private void stopWarmup(MsqTime time) {
+        smallCenter.stopWarmup(time);
+        mediumCenter.stopWarmup(time);
+        largeCenter.stopWarmup(time);
+    }
+
+    private void updateAreas(MsqTime msqTime) {
+        smallCenter.setArea(msqTime);
+        mediumCenter.setArea(msqTime);
+        largeCenter.setArea(msqTime);
+    }
+
+    private long getMinimumNumberOfJobsServedByCenters() {
+        return Stream.of(
+                smallCenter.getTotalNumberOfJobsServed(),
+                mediumCenter.getTotalNumberOfJobsServed(),
+                largeCenter.getTotalNumberOfJobsServed())
+                .min(Long::compare).orElseThrow();
+    }
+
+    private boolean isDone() {
+                return smallCenter.isDone()
+                && mediumCenter.isDone()
+                && largeCenter.isDone();
+    }
+
+    private void resetCenters(Rngs rngs, EventQueue events) {
+        smallCenter.start(rngs, START);
+        //generating first arrival
+        double time = smallCenter.getArrival();
+        events.addArrival(ARRIVAL_SMALL_CENTER, time);
+
+        mediumCenter.start(rngs, START);
+        //generating first arrival
+        time = mediumCenter.getArrival();
+        events.addArrival(ARRIVAL_MEDIUM_CENTER, time);
+
+        largeCenter.start(rngs, START);
+        //generating first arrival
+        time = largeCenter.getArrival();
+        events.addArrival(ARRIVAL_LARGE_CENTER, time);
+    }
+}
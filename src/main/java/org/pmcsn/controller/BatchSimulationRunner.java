@@ -3,42 +3,40 @@ package org.pmcsn.controller;
 import org.pmcsn.centers.*;
 import org.pmcsn.configuration.CenterFactory;
 import org.pmcsn.configuration.ConfigurationManager;
-import org.pmcsn.libraries.Rngs;
+import org.pmcsn.configuration.EventQueueFactory;
+import org.pmcsn.libraries.SeedSchedule;
 import org.pmcsn.model.*;
 import org.pmcsn.utils.*;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Stream;
 
-import static org.pmcsn.model.EventType.*;
 import static org.pmcsn.utils.AnalyticalComputation.computeAnalyticalResults;
 import static org.pmcsn.utils.Comparison.compareResults;
+import static org.pmcsn.utils.ControlVariates.applyControlVariates;
 import static org.pmcsn.utils.PrintUtils.*;
 import static org.pmcsn.utils.Verification.verifyConfidenceIntervals;
 
 public class BatchSimulationRunner {
-    // Constants
-    private static final int START = 0;
     private final long seed;
 
-    // Centri
+    // Centri: they only hold the batches merged from all the trajectories
     private SimpleCenter smallCenter;
     private SimpleCenter mediumCenter;
     private SimpleCenter largeCenter;
 
-    private List<Observations> smallCenterObservation;
-    private List<Observations> mediumCenterObservation;
-    private List<Observations> largeCenterObservation;
-
     // We need to compute autocorrelation on the series
     // Number of jobs in single batch (B)
     private final int batchSize;
     // Number of batches (K >= 40)
     private final int numBatches;
     private final int warmupThreshold;
-    private boolean isWarmingUp = true;
     private final int intervalLength;
+    // Number of independent trajectories (R) and batches collected by each of them
+    private final int replications;
+    private final int batchesPerReplication;
+    private final int streamIndex;
+    private final int replicationThreads;
 
     public BatchSimulationRunner(int batchSize, int numBatches, int warmupThreshold) {
         this(batchSize, numBatches, warmupThreshold, 123456789L);
@@ -51,6 +49,14 @@ public class BatchSimulationRunner {
         this.seed = seed;
         final ConfigurationManager conf = new ConfigurationManager();
         intervalLength = conf.getInt("general", "bmIntervalLength");
+        replications = conf.getInt("general", "batchReplications");
+        // every trajectory collects the same number of batches, so that exactly numBatches are pooled
+        if (replications < 1 || numBatches % replications != 0) {
+            throw new IllegalArgumentException("Invalid number of batch replications: " + replications + " (must divide numBatches=" + numBatches + ")");
+        }
+        batchesPerReplication = numBatches / replications;
+        streamIndex = conf.getInt("general", "seedStreamIndex");
+        replicationThreads = conf.getInt("general", "replicationThreads");
     }
 
     public List<BatchStatistics> runBatchSimulation(boolean approximateServiceAsExponential) throws Exception {
@@ -59,58 +65,24 @@ public class BatchSimulationRunner {
         String simulationType = getSimulationType(approximateServiceAsExponential);
         printDebug("\nRUNNING " + simulationType + "...");
 
-        // Rng setting the seed
-        Rngs rngs = new Rngs();
-        rngs.plantSeeds(seed);
-
         String observationsPath = "csvFiles/%s/%d/observations".formatted(simulationType, seed);
-        initObservations(observationsPath);
-
-        // Initialize MsqTime
-        MsqTime msqTime = new MsqTime();
-        msqTime.current = START;
-        EventQueue events = new FiniteSimulationEventQueue(intervalLength);
-
-        resetCenters(rngs, events);
-
-        boolean stopWarmup = false;
-
-        // the terminating condition is that all the centers have processed all the jobs
-        while(!isDone()) {
-            // Retrieving next event to be processed
-            MsqEvent event = events.pop();
-            if (event.type == EventType.SAVE_STAT) {
-                if (!isWarmingUp) {
-                    smallCenter.updateObservations(smallCenterObservation);
-                    mediumCenter.updateObservations(mediumCenterObservation);
-                    largeCenter.updateObservations(largeCenterObservation);
-                }
-                continue;
-            }
-            msqTime.next = event.time;
-
-            // Updating areas
-            updateAreas(msqTime);
-
-            MsqTime currentTime = new MsqTime();
-            currentTime.current = msqTime.current;
-            // Advancing the clock
-            msqTime.current = msqTime.next;
-
-            if (stopWarmup) {
-                stopWarmup(currentTime);
-                stopWarmup = false;
-            }
-
-            // Processing the event based on its type
-            processCurrentEvent(event, msqTime, events);
-
-            // Checking if still in warmup period
-            if (isWarmingUp && getMinimumNumberOfJobsServedByCenters() >= warmupThreshold ) {
-                printSuccess("WARMUP COMPLETED... Starting to collect statistics for centers from now on.");
-                isWarmingUp = false;
-                stopWarmup = true;
-            }
+        FileUtils.deleteDirectory(observationsPath);
+
+        // every trajectory collects its share of the batches, but each one starts empty and idle
+        // and must discard the whole warmup; with one trajectory this is the plain batch means method
+        SeedSchedule seeds = new SeedSchedule(seed, streamIndex);
+        CenterFactory factory = new CenterFactory(false, batchSize, batchesPerReplication);
+        EventQueueFactory eventQueueFactory = new EventQueueFactory();
+        List<BatchReplication> trajectories;
+        try (ReplicationExecutor executor = new ReplicationExecutor(replicationThreads)) {
+            trajectories = executor.run(0, replications, i ->
+                    new BatchReplication(factory, eventQueueFactory, approximateServiceAsExponential, warmupThreshold, intervalLength).run(seeds.seed(i)));
+        }
+
+        // merging the trajectories in replication order
+        for (BatchReplication trajectory : trajectories) {
+            writeObservations(observationsPath, trajectory);
+            saveAllBatchStats(trajectory);
         }
 
 //        System.out.printf("pControlloAutomatico = %f%n", scoringAutomatico.getAcceptedJobs() / scoringAutomatico.getTotalNumberOfJobs());
@@ -119,9 +91,7 @@ public class BatchSimulationRunner {
 
         // The batch simulation has now ended. Time to collect the statistics
         printSuccess(simulationType + " HAS JUST FINISHED.");
-        printDebug("Events queue size is " + events.size());
 
-        writeObservations(observationsPath);
         PlotUtils.welchPlot(observationsPath);
 
         // Writing statistics csv with data from all batches
@@ -135,26 +105,16 @@ public class BatchSimulationRunner {
         return getBatchStatistics();
     }
 
-    private void initObservations(String path) {
-        FileUtils.deleteDirectory(path);
-        smallCenterObservation = new ArrayList<>();
-        for (int i = 0; i < smallCenter.getServersNumber(); i++) {
-            smallCenterObservation.add(new Observations("%s_%d".formatted(smallCenter.getCenterName(), i + 1)));
-        }
-        mediumCenterObservation = new ArrayList<>();
-        for (int i = 0; i < mediumCenter.getServersNumber(); i++) {
-            mediumCenterObservation.add(new Observations("%s_%d".formatted(mediumCenter.getCenterName(), i + 1)));
-        }
-        largeCenterObservation = new ArrayList<>();
-        for (int i = 0; i < largeCenter.getServersNumber(); i++) {
-            largeCenterObservation.add(new Observations("%s_%d".formatted(largeCenter.getCenterName(), i + 1)));
-        }
+    private void writeObservations(String path, BatchReplication trajectory) {
+        PlotUtils.writeObservations(path, trajectory.smallCenterObservation);
+        PlotUtils.writeObservations(path, trajectory.mediumCenterObservation);
+        PlotUtils.writeObservations(path, trajectory.largeCenterObservation);
     }
 
-    private void writeObservations(String path) {
-        PlotUtils.writeObservations(path, smallCenterObservation);
-        PlotUtils.writeObservations(path, mediumCenterObservation);
-        PlotUtils.writeObservations(path, largeCenterObservation);
+    private void saveAllBatchStats(BatchReplication trajectory) {
+        smallCenter.getBatchStatistics().append(trajectory.smallCenter.getBatchStatistics());
+        mediumCenter.getBatchStatistics().append(trajectory.mediumCenter.getBatchStatistics());
+        largeCenter.getBatchStatistics().append(trajectory.largeCenter.getBatchStatistics());
     }
 
     private String getSimulationType(boolean approximateServiceAsExponential) {
@@ -167,12 +127,6 @@ public class BatchSimulationRunner {
         return s;
     }
 
-    private void stopWarmup(MsqTime time) {
-        smallCenter.stopWarmup(time);
-        mediumCenter.stopWarmup(time);
-        largeCenter.stopWarmup(time);
-    }
-
     private List<BatchStatistics> getBatchStatistics() {
         List<BatchStatistics> batchStatistics = new ArrayList<>();
         batchStatistics.add(smallCenter.getBatchStatistics());
@@ -189,32 +143,6 @@ public class BatchSimulationRunner {
         largeCenter = factory.createLargeCenter(approximateServiceAsExponential, false);
     }
 
-    private void processCurrentEvent(MsqEvent event, MsqTime msqTime, EventQueue events) {
-        switch (event.type) {
-            case ARRIVAL_SMALL_CENTER:
-                smallCenter.processArrival(event, msqTime, events);
-                smallCenter.generateNextArrival(events, ARRIVAL_SMALL_CENTER);
-                break;
-            case COMPLETION_SMALL_CENTER:
-                smallCenter.processCompletion(event, msqTime, events);
-                break;
-            case ARRIVAL_MEDIUM_CENTER:
-                mediumCenter.processArrival(event, msqTime, events);
-                mediumCenter.generateNextArrival(events, ARRIVAL_MEDIUM_CENTER);
-                break;
-            case COMPLETION_MEDIUM_CENTER:
-                mediumCenter.processCompletion(event, msqTime, events);
-                break;
-            case ARRIVAL_LARGE_CENTER:
-                largeCenter.processArrival(event, msqTime, events);
-                largeCenter.generateNextArrival(events, ARRIVAL_LARGE_CENTER);
-                break;
-            case COMPLETION_LARGE_CENTER:
-                largeCenter.processCompletion(event, msqTime, events);
-                break;
-        }
-    }
-
     private void modelVerification(String simulationType) {
         List<AnalyticalComputation.AnalyticalResult> analyticalResultList = computeAnalyticalResults(simulationType);
 
@@ -227,7 +155,11 @@ public class BatchSimulationRunner {
 
         List<Verification.VerificationResult> verificationResultList = verifyConfidenceIntervals(simulationType, batchMeanStatisticsList, comparisonResultList, confidenceIntervalsList);
 
-        printFinalResults(verificationResultList, batchSize, numBatches);
+        printFinalResults(verificationResultList, batchSize, replications * batchesPerReplication);
+
+        // Same response times, adjusted with the controls of known mean
+        List<ControlVariates.ControlVariateResult> controlVariateResultList = applyControlVariates(simulationType, analyticalResultList, List.of(smallCenter.getBatchStatistics(), mediumCenter.getBatchStatistics(), largeCenter.getBatchStatistics()));
+        printControlVariates(controlVariateResultList, smallCenter.getBatchStatistics().meanResponseTimeList.size());
     }
 
     private List<MeanStatistics> aggregateBatchMeanStatistics() {
@@ -246,10 +178,12 @@ public class BatchSimulationRunner {
         return confidenceIntervalsList;
     }
 
+    // the batches of every trajectory form a group of the pooled interval
     private ConfidenceIntervals createConfidenceIntervals(BatchStatistics stats) {
         return new ConfidenceIntervals(
                 stats.meanResponseTimeList, stats.meanQueueTimeList, stats.meanServiceTimeList,
-                stats.meanSystemPopulationList, stats.meanQueuePopulationList, stats.meanUtilizationList, stats.lambdaList
+                stats.meanSystemPopulationList, stats.meanQueuePopulationList, stats.meanUtilizationList, stats.lambdaList,
+                batchesPerReplication
         );
     }
 
@@ -259,44 +193,4 @@ public class BatchSimulationRunner {
         mediumCenter.writeBatchStats(simulationType, seed);
         largeCenter.writeBatchStats(simulationType, seed);
     }
-
-    private void updateAreas(MsqTime msqTime) {
-        smallCenter.setArea(msqTime);
-        mediumCenter.setArea(msqTime);
-        largeCenter.setArea(msqTime);
-    }
-
-    private long getMinimumNumberOfJobsServedByCenters() {
-        return Stream.of(
-                smallCenter.getTotalNumberOfJobsServed(),
-                mediumCenter.getTotalNumberOfJobsServed(),
-                largeCenter.getTotalNumberOfJobsServed())
-                .min(Long::compare).orElseThrow();
-    }
-
-    private boolean isDone() {
-                return smallCenter.isDone()
-                && mediumCenter.isDone()
-                && largeCenter.isDone();
-    }
-
-    private void resetCenters(Rngs rngs, EventQueue events) {
-        smallCenter.reset(rngs);
-        //generating first arrival
-        double time = smallCenter.getArrival();
-        MsqEvent firstEvent = new MsqEvent(ARRIVAL_SMALL_CENTER, time);
-        events.add(firstEvent);
-
-        mediumCenter.reset(rngs);
-        //generating first arrival
-        time = mediumCenter.getArrival();
-        firstEvent = new MsqEvent(ARRIVAL_MEDIUM_CENTER, time);
-        events.add(firstEvent);
-
-        largeCenter.reset(rngs);
-        //generating first arrival
-        time = largeCenter.getArrival();
-        firstEvent = new MsqEvent(ARRIVAL_LARGE_CENTER, time);
-        events.add(firstEvent);
-    }
 }
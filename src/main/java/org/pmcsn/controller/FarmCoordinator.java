@@ -0,0 +1,115 @@
+package org.pmcsn.controller;
+
+import org.pmcsn.configuration.ConfigurationManager;
+import org.pmcsn.utils.FileUtils;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Coordinator of the replication farm: it offers the replications of one scenario
+// (simulation type and seed) in a spool directory, starts the worker JVMs on this box and
+// collects their statistics rows in replication order.
+// A worker that exits before the end is replaced, and the units claimed by a worker whose
+// heartbeat is older than farmTimeoutMillis go back to the other workers. Workers started by
+// hand on the same spool (see FarmWorker) take part as well.
+public class FarmCoordinator {
+    // replacement workers started before giving up, e.g. on a replication that always fails
+    private static final int MAX_RESTARTS = 16;
+
+    private final String simulationType;
+    private final long seed;
+    private final FarmSpool spool;
+    private final int workersNumber;
+    private final long heartbeatMillis;
+    private final long timeoutMillis;
+    private final List<Process> workers = new ArrayList<>();
+    private int restarts = 0;
+
+    public FarmCoordinator(ConfigurationManager config, String simulationType, long seed) {
+        this.simulationType = simulationType;
+        this.seed = seed;
+        this.spool = new FarmSpool(Path.of(config.getString("general", "farmSpoolDir"), simulationType, String.valueOf(seed)));
+        int workers = config.getInt("general", "farmWorkers");
+        this.workersNumber = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        this.heartbeatMillis = config.getInt("general", "farmHeartbeatMillis");
+        this.timeoutMillis = config.getInt("general", "farmTimeoutMillis");
+    }
+
+    // runs the replications [0, runsNumber) and returns the rows of each of them, ordered by replication
+    public List<List<String>> run(int runsNumber) throws Exception {
+        FileUtils.deleteDirectory(spool.getRoot().toString());
+        spool.create();
+        List<String> units = new ArrayList<>();
+        for (int i = 0; i < runsNumber; i++) {
+            String unit = FarmSpool.unitName(simulationType, seed, i);
+            spool.offer(unit);
+            units.add(unit);
+        }
+
+        try {
+            for (int i = 0; i < workersNumber; i++) {
+                workers.add(startWorker(i));
+            }
+            int completed = 0;
+            while (completed < units.size()) {
+                Thread.sleep(heartbeatMillis);
+                replaceDeadWorkers();
+                int reclaimed = spool.reclaim(timeoutMillis);
+                if (reclaimed > 0) {
+                    System.out.println("Reassigned " + reclaimed + " replications of silent workers");
+                }
+                completed = (int) units.stream().filter(spool::isDone).count();
+            }
+            spool.close();
+            for (Process worker : workers) {
+                if (!worker.waitFor(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                    worker.destroy();
+                }
+            }
+        } finally {
+            workers.stream().filter(Process::isAlive).forEach(Process::destroyForcibly);
+        }
+
+        List<List<String>> results = new ArrayList<>();
+        for (String unit : units) {
+            results.add(spool.result(unit));
+        }
+        return results;
+    }
+
+    private void replaceDeadWorkers() throws Exception {
+        for (int i = 0; i < workers.size(); i++) {
+            Process worker = workers.get(i);
+            if (worker.isAlive()) {
+                continue;
+            }
+            // its claims need not wait for the heartbeat timeout
+            spool.retire(String.valueOf(worker.pid()));
+            if (++restarts > MAX_RESTARTS) {
+                throw new IllegalStateException("Too many farm workers died, see the logs in " + spool.getRoot());
+            }
+            System.out.println("Farm worker " + worker.pid() + " exited with " + worker.exitValue() + ", starting a new one");
+            workers.set(i, startWorker(i));
+        }
+    }
+
+    // the workers run the classes, the JVM options (e.g. --add-modules jdk.incubator.vector) and the
+    // configuration of this JVM
+    private Process startWorker(int i) throws Exception {
+        String java = ProcessHandle.current().info().command().orElse("java");
+        File log = spool.getRoot().resolve("worker-%d.log".formatted(i)).toFile();
+        List<String> command = new ArrayList<>();
+        command.add(java);
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.addAll(List.of("-cp", System.getProperty("java.class.path"),
+                FarmWorker.class.getName(), spool.getRoot().toString()));
+        return new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(log))
+                .start();
+    }
+}
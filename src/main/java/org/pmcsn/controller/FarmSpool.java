@@ -0,0 +1,157 @@
+package org.pmcsn.controller;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+// Spool directory shared by the coordinator and the workers of a replication farm.
+// Every work unit is a file whose name is "<simulationType>-<seed>-<replication>" and it moves
+// between the directories by atomic renames, so there are no locks and no process can observe
+// a half-done transition:
+//   pending/<unit>           waiting for a worker
+//   running/<unit>@<worker>  claimed by a worker
+//   done/<unit>              the statistics rows of the replication
+//   workers/<worker>         touched by the worker at every heartbeat
+// A claim whose worker has no recent heartbeat goes back to pending. A unit may then run
+// twice, but replications are deterministic, so both copies of done/<unit> are the same.
+public class FarmSpool {
+    private static final String CLOSED = "closed";
+    private static final char OWNER = '@';
+
+    private final Path root;
+    private final Path pending;
+    private final Path running;
+    private final Path done;
+    private final Path workers;
+
+    public FarmSpool(Path root) {
+        this.root = root;
+        this.pending = root.resolve("pending");
+        this.running = root.resolve("running");
+        this.done = root.resolve("done");
+        this.workers = root.resolve("workers");
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    public void create() throws IOException {
+        Files.createDirectories(pending);
+        Files.createDirectories(running);
+        Files.createDirectories(done);
+        Files.createDirectories(workers);
+    }
+
+    public static String unitName(String simulationType, long seed, int replication) {
+        return "%s-%d-%d".formatted(simulationType, seed, replication);
+    }
+
+    public void offer(String unit) throws IOException {
+        if (!isDone(unit)) {
+            Files.write(pending.resolve(unit), new byte[0]);
+        }
+    }
+
+    // moves the first pending unit to running and returns its name, or null if there is none
+    public String claim(String worker) throws IOException {
+        for (String unit : list(pending)) {
+            try {
+                Files.move(pending.resolve(unit), running.resolve(unit + OWNER + worker), ATOMIC_MOVE);
+            } catch (NoSuchFileException e) {
+                // claimed by another worker in the meantime
+                continue;
+            }
+            if (!isDone(unit)) {
+                return unit;
+            }
+            Files.deleteIfExists(running.resolve(unit + OWNER + worker));
+        }
+        return null;
+    }
+
+    public void complete(String unit, String worker, List<String> rows) throws IOException {
+        Path tmp = done.resolve(unit + OWNER + worker + ".tmp");
+        Files.write(tmp, rows);
+        Files.move(tmp, done.resolve(unit), ATOMIC_MOVE, REPLACE_EXISTING);
+        Files.deleteIfExists(running.resolve(unit + OWNER + worker));
+    }
+
+    public boolean isDone(String unit) {
+        return Files.exists(done.resolve(unit));
+    }
+
+    public List<String> result(String unit) throws IOException {
+        return Files.readAllLines(done.resolve(unit));
+    }
+
+    public void heartbeat(String worker) throws IOException {
+        Path beat = workers.resolve(worker);
+        if (Files.exists(beat)) {
+            Files.setLastModifiedTime(beat, FileTime.fromMillis(System.currentTimeMillis()));
+        } else {
+            Files.write(beat, new byte[0]);
+        }
+    }
+
+    // forgets a worker known to be dead, so that its claims are reclaimed at once
+    public void retire(String worker) throws IOException {
+        Files.deleteIfExists(workers.resolve(worker));
+    }
+
+    // puts back in pending the claims of the workers silent for more than timeoutMillis
+    public int reclaim(long timeoutMillis) throws IOException {
+        long now = System.currentTimeMillis();
+        int reclaimed = 0;
+        for (String claim : list(running)) {
+            int at = claim.lastIndexOf(OWNER);
+            String unit = claim.substring(0, at);
+            Path beat = workers.resolve(claim.substring(at + 1));
+            try {
+                if (now - Files.getLastModifiedTime(beat).toMillis() <= timeoutMillis) {
+                    continue;
+                }
+            } catch (NoSuchFileException e) {
+                // retired worker
+            }
+            try {
+                if (isDone(unit)) {
+                    Files.deleteIfExists(running.resolve(claim));
+                } else {
+                    Files.move(running.resolve(claim), pending.resolve(unit), ATOMIC_MOVE, REPLACE_EXISTING);
+                    reclaimed++;
+                }
+            } catch (NoSuchFileException e) {
+                // completed in the meantime
+            }
+        }
+        return reclaimed;
+    }
+
+    // no more units will be offered: idle workers can exit
+    public void close() throws IOException {
+        Files.write(root.resolve(CLOSED), new byte[0]);
+    }
+
+    public boolean isClosed() {
+        return Files.exists(root.resolve(CLOSED));
+    }
+
+    private static List<String> list(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            List<String> names = new ArrayList<>();
+            files.forEach(f -> names.add(f.getFileName().toString()));
+            names.sort(null);
+            return names;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.pmcsn.controller;
+
+import org.pmcsn.configuration.CenterFactory;
+import org.pmcsn.configuration.ConfigurationManager;
+import org.pmcsn.configuration.EventQueueFactory;
+import org.pmcsn.libraries.SeedSchedule;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Worker JVM of the replication farm: it claims the units of the spool given as argument, runs
+// them as FiniteImprovedReplication and writes back their statistics rows, until the spool is
+// closed by the coordinator.
+//   java -cp <classpath> org.pmcsn.controller.FarmWorker <spool>
+public class FarmWorker {
+    private static final ConfigurationManager config = new ConfigurationManager();
+    private final FarmSpool spool;
+    private final String id = String.valueOf(ProcessHandle.current().pid());
+    private final long heartbeatMillis = config.getInt("general", "farmHeartbeatMillis");
+    private final double stop = config.getDouble("general", "finiteSimObservationTime");
+    private final int streamIndex = config.getInt("general", "seedStreamIndex");
+    private final int intervalLength = config.getInt("general", "bmIntervalLength");
+    private final CenterFactory factory = new CenterFactory(false);
+    private final EventQueueFactory eventQueueFactory = new EventQueueFactory();
+
+    public FarmWorker(FarmSpool spool) {
+        this.spool = spool;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 1) {
+            System.err.println("usage: FarmWorker <spool>");
+            System.exit(2);
+        }
+        new FarmWorker(new FarmSpool(Path.of(args[0]))).work();
+    }
+
+    public void work() throws Exception {
+        spool.heartbeat(id);
+        ScheduledExecutorService heart = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "farm-heartbeat");
+            t.setDaemon(true);
+            return t;
+        });
+        heart.scheduleAtFixedRate(this::beat, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+        try {
+            while (true) {
+                String unit = spool.claim(id);
+                if (unit != null) {
+                    spool.complete(unit, id, run(unit).toRows());
+                } else if (spool.isClosed()) {
+                    break;
+                } else {
+                    Thread.sleep(heartbeatMillis);
+                }
+            }
+        } finally {
+            heart.shutdownNow();
+            spool.retire(id);
+        }
+    }
+
+    // unit = <simulationType>-<seed>-<replication>
+    private ReplicationResult run(String unit) throws Exception {
+        int last = unit.lastIndexOf('-');
+        int previous = unit.lastIndexOf('-', last - 1);
+        String simulationType = unit.substring(0, previous);
+        long seed = Long.parseLong(unit.substring(previous + 1, last));
+        int replication = Integer.parseInt(unit.substring(last + 1));
+        boolean approximateServiceAsExponential;
+        switch (simulationType) {
+            case "IMPROVED_FINITE_SIMULATION" -> approximateServiceAsExponential = false;
+            case "IMPROVED_FINITE_SIMULATION_EXPONENTIAL" -> approximateServiceAsExponential = true;
+            default -> throw new IllegalArgumentException("Unknown simulation type: " + simulationType);
+        }
+        SeedSchedule seeds = new SeedSchedule(seed, streamIndex);
+        return new FiniteImprovedReplication(factory, eventQueueFactory, approximateServiceAsExponential, false, intervalLength, stop).run(seeds.seed(replication));
+    }
+
+    private void beat() {
+        try {
+            spool.heartbeat(id);
+        } catch (IOException e) {
+            System.err.println("heartbeat failed: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package org.pmcsn.controller;
+
+import org.pmcsn.centers.RideCenter;
+import org.pmcsn.centers.SimpleCenter;
+import org.pmcsn.configuration.CenterFactory;
+import org.pmcsn.configuration.EventQueueFactory;
+import org.pmcsn.configuration.RngsFactory;
+import org.pmcsn.libraries.Rngs;
+import org.pmcsn.model.*;
+
+import java.util.List;
+
+import static org.pmcsn.controller.FiniteReplication.createObservations;
+import static org.pmcsn.model.EventType.*;
+
+// A single replication of the finite-horizon improved model (simple centers plus ride sharing),
+// with its own centers, Rngs and event queue.
+public class FiniteImprovedReplication {
+    private static final RngsFactory rngsFactory = new RngsFactory();
+    private final int start = 0;
+    private final double stop;
+    private final boolean shouldTrackObservations;
+    // time between two observations of the tracking, general.bmIntervalLength
+    private final int intervalLength;
+    private final EventQueueFactory eventQueueFactory;
+
+    private final SimpleCenter smallCenter;
+    private final SimpleCenter mediumCenter;
+    private final SimpleCenter largeCenter;
+    private final RideCenter rideCenter;
+    private final EventDispatcher dispatcher = new EventDispatcher();
+
+    private final List<Observations> smallCenterObservation;
+    private final List<Observations> mediumCenterObservation;
+    private final List<Observations> largeCenterObservation;
+    private final List<Observations> rideCenterObservation;
+
+    public FiniteImprovedReplication(CenterFactory factory, EventQueueFactory eventQueueFactory, boolean approximateServiceAsExponential, boolean shouldTrackObservations, int intervalLength, double stop) {
+        this.stop = stop;
+        this.shouldTrackObservations = shouldTrackObservations;
+        this.intervalLength = intervalLength;
+        this.eventQueueFactory = eventQueueFactory;
+        smallCenter = factory.createSmallCenter(approximateServiceAsExponential, false);
+        mediumCenter = factory.createMediumCenter(approximateServiceAsExponential, false);
+        largeCenter = factory.createLargeCenter(approximateServiceAsExponential, false);
+        rideCenter = factory.createRideCenter(approximateServiceAsExponential, false);
+        smallCenter.registerHandlers(dispatcher);
+        mediumCenter.registerHandlers(dispatcher);
+        largeCenter.registerHandlers(dispatcher);
+        rideCenter.registerHandlers(dispatcher);
+        smallCenterObservation = createObservations(smallCenter);
+        mediumCenterObservation = createObservations(mediumCenter);
+        largeCenterObservation = createObservations(largeCenter);
+        rideCenterObservation = createObservations(rideCenter);
+    }
+
+    public ReplicationResult run(long seed) throws Exception {
+        return run(seed, false);
+    }
+
+    // antithetic: the run draws 1 - U for every U of the run with the same seed
+    public ReplicationResult run(long seed, boolean antithetic) throws Exception {
+        Rngs rngs = rngsFactory.createRngs();
+        rngs.plantSeeds(seed);
+        rngs.setAntithetic(antithetic);
+
+        //Msq initialization
+        MsqTime msqTime = new MsqTime();
+        msqTime.current = start;
+        EventQueue queue = eventQueueFactory.createEventQueue();
+        SamplingClock samplingClock = new SamplingClock();
+        if (shouldTrackObservations) {
+            samplingClock.register(intervalLength, t -> smallCenter.updateObservations(smallCenterObservation));
+            samplingClock.register(intervalLength, t -> mediumCenter.updateObservations(mediumCenterObservation));
+            samplingClock.register(intervalLength, t -> largeCenter.updateObservations(largeCenterObservation));
+            samplingClock.register(intervalLength, t -> rideCenter.updateObservations(rideCenterObservation));
+        }
+
+        resetCenters(rngs, queue);
+
+        MsqEvent event;
+        // need to use OR because all the conditions should be false
+        while (smallCenter.isEndOfArrivals() || mediumCenter.isEndOfArrivals() || largeCenter.isEndOfArrivals() || !rideCenter.isEndOfArrivals() || queue.isEmpty()) {
+
+            // Sampling the observations due before the next event
+            samplingClock.advanceTo(queue.peekTime());
+
+            // Retrieving next event to be processed
+            event = queue.pop();
+            msqTime.next = event.time;
+
+            // Updating areas
+            updateAreas(msqTime);
+
+            // Advancing the clock
+            msqTime.current = msqTime.next;
+
+            // Processing the event based on its type
+            dispatcher.dispatch(event, msqTime, queue);
+            queue.release(event);
+        }
+
+        // Saving statistics for current run
+        smallCenter.saveStats();
+        mediumCenter.saveStats();
+        largeCenter.saveStats();
+        rideCenter.saveStats();
+        return new ReplicationResult(
+                List.of(smallCenter.getStatistics(), mediumCenter.getStatistics(), largeCenter.getStatistics(), rideCenter.getStatistics()),
+                List.of(smallCenterObservation, mediumCenterObservation, largeCenterObservation, rideCenterObservation));
+    }
+
+    private void resetCenters(Rngs rngs, EventQueue queue) {
+        // Initialize small
+        smallCenter.start(rngs, start);
+        smallCenter.setStop(stop);
+
+        //generating first arrival
+        double time = smallCenter.getArrival();
+        queue.addArrival(ARRIVAL_SMALL_CENTER, time);
+
+        // Initialize medium
+        mediumCenter.start(rngs, start);
+        mediumCenter.setStop(stop);
+
+        //generating first arrival
+        time = mediumCenter.getArrival();
+        queue.addArrival(ARRIVAL_MEDIUM_CENTER, time);
+
+        // Initialize large
+        largeCenter.start(rngs, start);
+        largeCenter.setStop(stop);
+
+        //generating first arrival
+        time = largeCenter.getArrival();
+        queue.addArrival(ARRIVAL_LARGE_CENTER, time);
+
+        // Initialize ride
+        rideCenter.start(rngs, start);
+        rideCenter.setStop(stop);
+
+        //generating first arrival
+        time = rideCenter.getArrival();
+        queue.addArrival(ARRIVAL_RIDE_CENTER, time, rideCenter.getNumPosti());
+    }
+
+    private void updateAreas(MsqTime msqTime) {
+        // Updating the areas
+        smallCenter.setArea(msqTime);
+        mediumCenter.setArea(msqTime);
+        largeCenter.setArea(msqTime);
+        rideCenter.setArea(msqTime);
+    }
+}
@@ -3,14 +3,14 @@ package org.pmcsn.controller;
 import org.pmcsn.centers.*;
 import org.pmcsn.configuration.CenterFactory;
 import org.pmcsn.configuration.ConfigurationManager;
-import org.pmcsn.libraries.Rngs;
+import org.pmcsn.configuration.EventQueueFactory;
+import org.pmcsn.libraries.SeedSchedule;
 import org.pmcsn.model.*;
 import org.pmcsn.utils.*;
 
 import java.util.ArrayList;
 import java.util.List;
 
-import static org.pmcsn.model.EventType.*;
 import static org.pmcsn.utils.AnalyticalComputation.computeAnalyticalResults;
 import static org.pmcsn.utils.Comparison.compareResults;
 import static org.pmcsn.utils.PrintUtils.printFinalResults;
@@ -20,23 +20,22 @@ import static org.pmcsn.utils.Verification.verifyConfidenceIntervals;
 
 public class FiniteImprovedSimulationRunner {
     private static final ConfigurationManager config = new ConfigurationManager();
-    private final int start = 0;
     private static final double stop = config.getDouble("general", "finiteSimObservationTime");
     private final long seed;
     private final int runsNumber = config.getInt("general", "runsNumber");
+    private final int intervalLength = config.getInt("general", "bmIntervalLength");
     private final int streamIndex = config.getInt("general", "seedStreamIndex");
+    private final EventQueueFactory eventQueueFactory = new EventQueueFactory();
+    private final int replicationThreads = config.getInt("general", "replicationThreads");
+    private final boolean sequentialStopping = config.getBoolean("general", "sequentialStopping");
+    private final boolean antitheticPairs = config.getBoolean("general", "antitheticPairs");
+    private final boolean writeResultsCsv = config.getBoolean("general", "writeResultsCsv");
 
     private SimpleCenter largeCenter;
     private SimpleCenter mediumCenter;
     private SimpleCenter smallCenter;
     private RideCenter rideCenter;
 
-    private List<Observations> smallCenterObservation;
-    private List<Observations> mediumCenterObservation;
-    private List<Observations> largeCenterObservation;
-    private List<Observations> rideCenterObservation;
-
-    private EventQueue queue;
 
     public FiniteImprovedSimulationRunner() {
         this(123456789L);
@@ -52,80 +51,83 @@ public class FiniteImprovedSimulationRunner {
 
         System.out.println("\nRUNNING " + simulationType + "...");
 
-        //Rng setting the seed
-        long[] seeds = new long[1024];
-        seeds[0] = seed;
-        Rngs rngs = new Rngs();
-
         String observationsPath = "csvFiles/%s/%d/observations".formatted(simulationType, seed);
         if (shouldTrackObservations) {
-            initObservations(observationsPath);
+            FileUtils.deleteDirectory(observationsPath);
         }
 
-        for (int i = 0; i < runsNumber; i++) {
-            long number = 1;
-
-            rngs.plantSeeds(seeds[i]);
-
-            //Msq initialization
-            MsqTime msqTime = new MsqTime();
-            msqTime.current = start;
-
-            if (shouldTrackObservations) {
-                queue = new FiniteSimulationEventQueue();
-            } else {
-                queue = new EventQueue();
-            }
+        SeedSchedule seeds = new SeedSchedule(seed, streamIndex);
 
-            resetCenters(rngs);
-
-            MsqEvent event;
-            // need to use OR because all the conditions should be false
-            while (smallCenter.isEndOfArrivals() || mediumCenter.isEndOfArrivals() || largeCenter.isEndOfArrivals() || !rideCenter.isEndOfArrivals() || queue.isEmpty()) {
-
-                // Retrieving next event to be processed
-                event = queue.pop();
-                if (event.type == EventType.SAVE_STAT) {
-                    smallCenter.updateObservations(smallCenterObservation);
-                    mediumCenter.updateObservations(mediumCenterObservation);
-                    largeCenter.updateObservations(largeCenterObservation);
-                    rideCenter.updateObservations(rideCenterObservation);
-                    continue;
+        CenterFactory factory = new CenterFactory(false);
+        // with antithetic pairs the runs 2k and 2k+1 share seed k, the second one on 1 - U, and
+        // every pair is one observation: done and the waves count pairs
+        int pairSize = antitheticPairs ? 2 : 1;
+        SequentialStopping stopping = new SequentialStopping(config, runsNumber / pairSize);
+        int done = 0;
+        try (ReplicationExecutor executor = new ReplicationExecutor(replicationThreads)) {
+            do {
+                int wave = sequentialStopping ? stopping.nextWave(done, executor.getParallelism()) : runsNumber / pairSize;
+                List<ReplicationResult> replications = executor.run(done * pairSize, (done + wave) * pairSize, i ->
+                        new FiniteImprovedReplication(factory, eventQueueFactory, approximateServiceAsExponential, shouldTrackObservations, intervalLength, stop).run(seeds.seed(i / pairSize), i % pairSize == 1));
+                done += wave;
+
+                // merging the runs in replication order
+                for (int i = 0; i < replications.size(); i += pairSize) {
+                    ReplicationResult replication = replications.get(i);
+                    // Writing observations for current run
+                    if (shouldTrackObservations) {
+                        writeObservations(observationsPath, replication);
+                    }
+
+                    // Saving statistics for current run
+                    if (antitheticPairs) {
+                        ReplicationResult antithetic = replications.get(i + 1);
+                        if (shouldTrackObservations) {
+                            writeObservations(observationsPath, antithetic);
+                        }
+                        saveAllStats(replication, antithetic);
+                    } else {
+                        saveAllStats(replication);
+                    }
                 }
-                msqTime.next = event.time;
-
-                // Updating areas
-                updateAreas(msqTime);
+            } while (sequentialStopping && !stopping.isDone(done, aggregateStatistics()));
+        }
+        if (sequentialStopping) {
+            System.out.println("Replications used: " + done * pairSize);
+        }
 
-                // Advancing the clock
-                msqTime.current = msqTime.next;
+        System.out.println(simulationType + " HAS JUST FINISHED.");
 
-                // Processing the event based on its type
-                processCurrentEvent(event, msqTime);
+        if (shouldTrackObservations) {
+            PlotUtils.welchPlot(observationsPath);
+        }
 
-                number = getTotalNumberOfJobsInSystem();
-            }
+        reportResults(simulationType, approximateServiceAsExponential);
+    }
 
-            // Writing observations for current run
-            if (shouldTrackObservations) {
-                writeObservations(observationsPath);
-                resetObservations();
-            }
+    // Runs the replications on worker JVMs coordinated through a spool directory (see FarmCoordinator)
+    // and merges them as runImprovedModelSimulation does; observations are not tracked and the workers
+    // run plain independent replications, so antithetic pairs and sequential stopping are rejected.
+    public void runImprovedModelSimulationOnFarm(boolean approximateServiceAsExponential) throws Exception {
+        if (antitheticPairs || sequentialStopping) {
+            throw new IllegalArgumentException("Invalid farm run: general.antitheticPairs and general.sequentialStopping are not supported on the replication farm");
+        }
+        initCenters(approximateServiceAsExponential);
+        String simulationType = getSimulationType(approximateServiceAsExponential);
 
-            // Saving statistics for current run
-            saveAllStats();
+        System.out.println("\nRUNNING " + simulationType + " ON THE REPLICATION FARM...");
 
-            // Generating next seed
-            rngs.selectStream(config.getInt("general", "seedStreamIndex"));
-            seeds[i + 1] = rngs.getSeed();
+        List<List<String>> runs = new FarmCoordinator(config, simulationType, seed).run(runsNumber);
+        for (List<String> rows : runs) {
+            saveAllStats(rows);
         }
 
         System.out.println(simulationType + " HAS JUST FINISHED.");
 
-        if (shouldTrackObservations) {
-            PlotUtils.welchPlot(observationsPath);
-        }
+        reportResults(simulationType, approximateServiceAsExponential);
+    }
 
+    private void reportResults(String simulationType, boolean approximateServiceAsExponential) {
         // Writing statistics csv with data from all runs
         writeAllStats(simulationType, seed);
 
@@ -153,85 +155,32 @@ public class FiniteImprovedSimulationRunner {
         mediumCenter = factory.createMediumCenter(approximateServiceAsExponential, false);
         largeCenter = factory.createLargeCenter(approximateServiceAsExponential, false);
         rideCenter = factory.createRideCenter(approximateServiceAsExponential, false);
+        // the runs are kept one by one only for the results csv, otherwise only their accumulators
+        for (MultiServer center : List.of(smallCenter, mediumCenter, largeCenter, rideCenter)) {
+            center.getStatistics().setRetainSeries(writeResultsCsv);
+        }
     }
 
-    private void resetCenters(Rngs rngs) {
-        // Initialize small
-        smallCenter.start(rngs, start);
-        smallCenter.setStop(stop);
-
-        //generating first arrival
-        double time = smallCenter.getArrival();
-        MsqEvent firstEvent = new MsqEvent(ARRIVAL_SMALL_CENTER, time);
-        queue.add(firstEvent);
-
-        // Initialize medium
-        mediumCenter.start(rngs, start);
-        mediumCenter.setStop(stop);
-
-        //generating first arrival
-        time = mediumCenter.getArrival();
-        firstEvent = new MsqEvent(ARRIVAL_MEDIUM_CENTER, time);
-        queue.add(firstEvent);
-
-        // Initialize large
-        largeCenter.start(rngs, start);
-        largeCenter.setStop(stop);
-
-        //generating first arrival
-        time = largeCenter.getArrival();
-        firstEvent = new MsqEvent(EventType.ARRIVAL_LARGE_CENTER, time);
-        queue.add(firstEvent);
-
-        // Initialize large
-        rideCenter.start(rngs, start);
-        rideCenter.setStop(stop);
-
-        //generating first arrival
-        time = rideCenter.getArrival();
-        firstEvent = new MsqEvent(EventType.ARRIVAL_RIDE_CENTER, time);
-        firstEvent.postiRichiesti = rideCenter.getNumPosti();
-        queue.add(firstEvent);
+    private void saveAllStats(ReplicationResult replication) {
+        smallCenter.getStatistics().append(replication.statistics(0));
+        mediumCenter.getStatistics().append(replication.statistics(1));
+        largeCenter.getStatistics().append(replication.statistics(2));
+        rideCenter.getStatistics().append(replication.statistics(3));
     }
 
-    private void processCurrentEvent(MsqEvent event, MsqTime msqTime) {
-        switch (event.type) {
-            case ARRIVAL_SMALL_CENTER:
-                smallCenter.processArrival(event, msqTime, queue);
-                smallCenter.generateNextArrival(queue, ARRIVAL_SMALL_CENTER);
-                break;
-            case COMPLETION_SMALL_CENTER:
-                smallCenter.processCompletion(event, msqTime, queue);
-                break;
-            case ARRIVAL_MEDIUM_CENTER:
-                mediumCenter.processArrival(event, msqTime, queue);
-                mediumCenter.generateNextArrival(queue, ARRIVAL_MEDIUM_CENTER);
-                break;
-            case COMPLETION_MEDIUM_CENTER:
-                mediumCenter.processCompletion(event, msqTime, queue);
-                break;
-            case ARRIVAL_LARGE_CENTER:
-                largeCenter.processArrival(event, msqTime, queue);
-                largeCenter.generateNextArrival(queue, ARRIVAL_LARGE_CENTER);
-                break;
-            case COMPLETION_LARGE_CENTER:
-                largeCenter.processCompletion(event, msqTime, queue);
-                break;
-            case ARRIVAL_RIDE_CENTER:
-                rideCenter.processArrival(event, msqTime, queue);
-                rideCenter.generateNextArrival(queue);
-                break;
-            case COMPLETION_RIDE_CENTER:
-                rideCenter.processCompletion(event, msqTime, queue);
-                break;
-        }
+    // rows in the order of FiniteImprovedReplication.toRows
+    private void saveAllStats(List<String> rows) {
+        smallCenter.getStatistics().addRunRow(rows.get(0));
+        mediumCenter.getStatistics().addRunRow(rows.get(1));
+        largeCenter.getStatistics().addRunRow(rows.get(2));
+        rideCenter.getStatistics().addRunRow(rows.get(3));
     }
 
-    private void saveAllStats() {
-        smallCenter.saveStats();
-        mediumCenter.saveStats();
-        largeCenter.saveStats();
-        rideCenter.saveStats();
+    private void saveAllStats(ReplicationResult replication, ReplicationResult antithetic) {
+        smallCenter.getStatistics().appendMean(replication.statistics(0), antithetic.statistics(0));
+        mediumCenter.getStatistics().appendMean(replication.statistics(1), antithetic.statistics(1));
+        largeCenter.getStatistics().appendMean(replication.statistics(2), antithetic.statistics(2));
+        rideCenter.getStatistics().appendMean(replication.statistics(3), antithetic.statistics(3));
     }
 
     private void modelVerification(String simulationType) {
@@ -266,6 +215,15 @@ public class FiniteImprovedSimulationRunner {
         System.out.println("Average response time in RIDE SHARING CENTER: " + rideCenter.getMeanStatistics().meanResponseTime);
     }
 
+    private List<BasicStatistics> aggregateStatistics() {
+        List<BasicStatistics> statisticsList = new ArrayList<>();
+        statisticsList.add(smallCenter.getStatistics());
+        statisticsList.add(mediumCenter.getStatistics());
+        statisticsList.add(largeCenter.getStatistics());
+        statisticsList.add(rideCenter.getStatistics());
+        return statisticsList;
+    }
+
     private List<ConfidenceIntervals> aggregateConfidenceIntervals() {
         List<ConfidenceIntervals> confidenceIntervalsList = new ArrayList<>();
         confidenceIntervalsList.add(createConfidenceIntervals(smallCenter.getStatistics()));
@@ -276,66 +234,22 @@ public class FiniteImprovedSimulationRunner {
     }
 
     private ConfidenceIntervals createConfidenceIntervals(BasicStatistics stats) {
-        return new ConfidenceIntervals(
-                stats.meanResponseTimeList, stats.meanQueueTimeList, stats.meanServiceTimeList,
-                stats.meanSystemPopulationList, stats.meanQueuePopulationList, stats.meanUtilizationList, stats.lambdaList
-        );
+        return new ConfidenceIntervals(stats);
     }
 
     private void writeAllStats(String simulationType, long seed) {
-        System.out.println("Writing csv files with stats for all the centers.");
+        if (writeResultsCsv) {
+            System.out.println("Writing csv files with stats for all the centers.");
+        }
         smallCenter.writeStats(simulationType, seed);
         mediumCenter.writeStats(simulationType, seed);
         largeCenter.writeStats(simulationType, seed);
         rideCenter.writeStats(simulationType, seed);
     }
 
-    private long getTotalNumberOfJobsInSystem() {
-        return smallCenter.getNumberOfJobsInNode() +
-                mediumCenter.getNumberOfJobsInNode() +
-                largeCenter.getNumberOfJobsInNode() +
-                rideCenter.getNumberOfJobsInNode();
-    }
-
-    private void updateAreas(MsqTime msqTime) {
-        // Updating the areas
-        smallCenter.setArea(msqTime);
-        mediumCenter.setArea(msqTime);
-        largeCenter.setArea(msqTime);
-        rideCenter.setArea(msqTime);
-    }
-
-    private void initObservations(String path) {
-        FileUtils.deleteDirectory(path);
-        smallCenterObservation = new ArrayList<>();
-        for (int i = 0; i < smallCenter.getServersNumber(); i++) {
-            smallCenterObservation.add(new Observations("%s_%d".formatted(smallCenter.getCenterName(), i + 1)));
-        }
-        mediumCenterObservation = new ArrayList<>();
-        for (int i = 0; i < mediumCenter.getServersNumber(); i++) {
-            mediumCenterObservation.add(new Observations("%s_%d".formatted(mediumCenter.getCenterName(), i + 1)));
-        }
-        largeCenterObservation = new ArrayList<>();
-        for (int i = 0; i < largeCenter.getServersNumber(); i++) {
-            largeCenterObservation.add(new Observations("%s_%d".formatted(largeCenter.getCenterName(), i + 1)));
-        }
-        rideCenterObservation = new ArrayList<>();
-        for (int i = 0; i < rideCenter.getServersNumber(); i++) {
-            rideCenterObservation.add(new Observations("%s_%d".formatted(rideCenter.getCenterName(), i + 1)));
+    private void writeObservations(String path, ReplicationResult replication) {
+        for (List<Observations> observations : replication.observations()) {
+            PlotUtils.writeObservations(path, observations);
         }
     }
-
-    private void resetObservations() {
-        smallCenterObservation.forEach(Observations::reset);
-        mediumCenterObservation.forEach(Observations::reset);
-        largeCenterObservation.forEach(Observations::reset);
-        rideCenterObservation.forEach(Observations::reset);
-    }
-
-    private void writeObservations(String path) {
-        PlotUtils.writeObservations(path, smallCenterObservation);
-        PlotUtils.writeObservations(path, mediumCenterObservation);
-        PlotUtils.writeObservations(path, largeCenterObservation);
-        PlotUtils.writeObservations(path, rideCenterObservation);
-    }
 }
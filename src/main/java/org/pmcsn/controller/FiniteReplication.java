@@ -0,0 +1,154 @@
+package org.pmcsn.controller;
+
+import org.pmcsn.centers.MultiServer;
+import org.pmcsn.centers.SimpleCenter;
+import org.pmcsn.configuration.CenterFactory;
+import org.pmcsn.configuration.EventQueueFactory;
+import org.pmcsn.configuration.RngsFactory;
+import org.pmcsn.libraries.Rngs;
+import org.pmcsn.model.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.pmcsn.model.EventType.*;
+
+// A single replication of the finite-horizon base model. It owns its centers, Rngs and event
+// queue, so that independent replications can run concurrently; the runner merges the
+// ReplicationResult of every run in replication order.
+public class FiniteReplication {
+    private static final RngsFactory rngsFactory = new RngsFactory();
+    private final int start = 0;
+    private final double stop;
+    private final boolean shouldTrackObservations;
+    // time between two observations of the tracking, general.bmIntervalLength
+    private final int intervalLength;
+    private final EventQueueFactory eventQueueFactory;
+
+    private final SimpleCenter smallCenter;
+    private final SimpleCenter mediumCenter;
+    private final SimpleCenter largeCenter;
+    private final EventDispatcher dispatcher = new EventDispatcher();
+
+    private final List<Observations> smallCenterObservation;
+    private final List<Observations> mediumCenterObservation;
+    private final List<Observations> largeCenterObservation;
+
+    public FiniteReplication(CenterFactory factory, EventQueueFactory eventQueueFactory, boolean approximateServiceAsExponential, boolean shouldTrackObservations, int intervalLength, double stop) {
+        this.stop = stop;
+        this.shouldTrackObservations = shouldTrackObservations;
+        this.intervalLength = intervalLength;
+        this.eventQueueFactory = eventQueueFactory;
+        smallCenter = factory.createSmallCenter(approximateServiceAsExponential, false);
+        mediumCenter = factory.createMediumCenter(approximateServiceAsExponential, false);
+        largeCenter = factory.createLargeCenter(approximateServiceAsExponential, false);
+        smallCenter.registerHandlers(dispatcher);
+        mediumCenter.registerHandlers(dispatcher);
+        largeCenter.registerHandlers(dispatcher);
+        smallCenterObservation = createObservations(smallCenter);
+        mediumCenterObservation = createObservations(mediumCenter);
+        largeCenterObservation = createObservations(largeCenter);
+    }
+
+    public ReplicationResult run(long seed) throws Exception {
+        return run(seed, false);
+    }
+
+    // antithetic: the run draws 1 - U for every U of the run with the same seed
+    public ReplicationResult run(long seed, boolean antithetic) throws Exception {
+        long number = 1;
+        Rngs rngs = rngsFactory.createRngs();
+        rngs.plantSeeds(seed);
+        rngs.setAntithetic(antithetic);
+
+        //Msq initialization
+        MsqTime msqTime = new MsqTime();
+        msqTime.current = start;
+        EventQueue queue = eventQueueFactory.createEventQueue();
+        SamplingClock samplingClock = new SamplingClock();
+        if (shouldTrackObservations) {
+            samplingClock.register(intervalLength, t -> smallCenter.updateObservations(smallCenterObservation));
+            samplingClock.register(intervalLength, t -> mediumCenter.updateObservations(mediumCenterObservation));
+            samplingClock.register(intervalLength, t -> largeCenter.updateObservations(largeCenterObservation));
+        }
+
+        resetCenters(rngs, queue);
+
+        MsqEvent event;
+        // need to use OR because all the conditions should be false
+        while (smallCenter.isEndOfArrivals() || mediumCenter.isEndOfArrivals() || largeCenter.isEndOfArrivals() || queue.isEmpty() || number != 0) {
+            // Sampling the observations due before the next event
+            samplingClock.advanceTo(queue.peekTime());
+
+            // Retrieving next event to be processed
+            event = queue.pop();
+            msqTime.next = event.time;
+
+            // Updating areas
+            updateAreas(msqTime);
+
+            // Advancing the clock
+            msqTime.current = msqTime.next;
+
+            // Processing the event based on its type
+            dispatcher.dispatch(event, msqTime, queue);
+            queue.release(event);
+            number = getTotalNumberOfJobsInSystem();
+        }
+
+        // Saving statistics for current run
+        smallCenter.saveStats();
+        mediumCenter.saveStats();
+        largeCenter.saveStats();
+        return new ReplicationResult(
+                List.of(smallCenter.getStatistics(), mediumCenter.getStatistics(), largeCenter.getStatistics()),
+                List.of(smallCenterObservation, mediumCenterObservation, largeCenterObservation));
+    }
+
+    private void resetCenters(Rngs rngs, EventQueue queue) {
+        // Initialize small
+        smallCenter.start(rngs, start);
+        smallCenter.setStop(stop);
+
+        //generating first arrival
+        double time = smallCenter.getArrival();
+        queue.addArrival(ARRIVAL_SMALL_CENTER, time);
+
+        // Initialize medium
+        mediumCenter.start(rngs, start);
+        mediumCenter.setStop(stop);
+
+        //generating first arrival
+        time = mediumCenter.getArrival();
+        queue.addArrival(ARRIVAL_MEDIUM_CENTER, time);
+
+        // Initialize large
+        largeCenter.start(rngs, start);
+        largeCenter.setStop(stop);
+
+        //generating first arrival
+        time = largeCenter.getArrival();
+        queue.addArrival(ARRIVAL_LARGE_CENTER, time);
+    }
+
+    private long getTotalNumberOfJobsInSystem() {
+        return smallCenter.getNumberOfJobsInNode() +
+                mediumCenter.getNumberOfJobsInNode() +
+                largeCenter.getNumberOfJobsInNode();
+    }
+
+    private void updateAreas(MsqTime msqTime) {
+        // Updating the areas
+        smallCenter.setArea(msqTime);
+        mediumCenter.setArea(msqTime);
+        largeCenter.setArea(msqTime);
+    }
+
+    static List<Observations> createObservations(MultiServer center) {
+        List<Observations> observations = new ArrayList<>();
+        for (int i = 0; i < center.getServersNumber(); i++) {
+            observations.add(new Observations("%s_%d".formatted(center.getCenterName(), i + 1)));
+        }
+        return observations;
+    }
+}
@@ -3,35 +3,38 @@ package org.pmcsn.controller;
 import org.pmcsn.centers.SimpleCenter;
 import org.pmcsn.configuration.CenterFactory;
 import org.pmcsn.configuration.ConfigurationManager;
-import org.pmcsn.libraries.Rngs;
+import org.pmcsn.configuration.EventQueueFactory;
+import org.pmcsn.libraries.SeedSchedule;
 import org.pmcsn.model.*;
 import org.pmcsn.utils.*;
 
 import java.util.ArrayList;
 import java.util.List;
 
-import static org.pmcsn.model.EventType.*;
 import static org.pmcsn.utils.AnalyticalComputation.computeAnalyticalResults;
 import static org.pmcsn.utils.Comparison.compareResults;
+import static org.pmcsn.utils.ControlVariates.applyControlVariates;
+import static org.pmcsn.utils.PrintUtils.printControlVariates;
 import static org.pmcsn.utils.PrintUtils.printFinalResults;
 import static org.pmcsn.utils.Verification.verifyConfidenceIntervals;
 
 public class FiniteSimulationRunner {
     private static final ConfigurationManager config = new ConfigurationManager();
-    private final int start = 0;
     private final double stop = config.getDouble("general", "finiteSimObservationTime"); // 8 hours
     private final long seed;
     private final int rngStreamIndex = config.getInt("general", "seedStreamIndex");
     private final int runsNumber = config.getInt("general", "runsNumber");
+    private final int intervalLength = config.getInt("general", "bmIntervalLength");
+    private final EventQueueFactory eventQueueFactory = new EventQueueFactory();
+    private final int replicationThreads = config.getInt("general", "replicationThreads");
+    private final boolean sequentialStopping = config.getBoolean("general", "sequentialStopping");
+    private final boolean antitheticPairs = config.getBoolean("general", "antitheticPairs");
+    private final boolean writeResultsCsv = config.getBoolean("general", "writeResultsCsv");
 
     private SimpleCenter smallCenter;
     private SimpleCenter mediumCenter;
     private SimpleCenter largeCenter;
 
-    private List<Observations> smallCenterObservation;
-    private List<Observations> mediumCenterObservation;
-    private List<Observations> largeCenterObservation;
-
 
     public FiniteSimulationRunner() {
         this(123456789L);
@@ -46,77 +49,52 @@ public class FiniteSimulationRunner {
             boolean shouldTrackObservations) throws Exception {
             initCenters(approximateServiceAsExponential);
 
-        System.out.println("[DEBUG] runFiniteSimulation: trackObs=" + shouldTrackObservations);
         String simulationType = getSimulationType(approximateServiceAsExponential);
         System.out.println("\nRUNNING " + simulationType + "...");
 
-        //Rng setting the seed
-        long[] seeds = new long[1024];
-        seeds[0] = seed;
-        Rngs rngs = new Rngs();
-
         String observationsPath = "csvFiles/%s/%d/observations".formatted(simulationType, seed);
         if (shouldTrackObservations) {
             initObservations(observationsPath);
         }
 
-        for (int i = 0; i < runsNumber; i++) {
-            long number = 1;
-
-            rngs.plantSeeds(seeds[i]);
-
-            //Msq initialization
-            MsqTime msqTime = new MsqTime();
-            msqTime.current = start;
-            EventQueue queue;
-            if (shouldTrackObservations) {
-                queue = new FiniteSimulationEventQueue();
-            } else {
-                queue = new EventQueue();
-            }
-
-           resetCenters(rngs, queue);
-
-            MsqEvent event;
-            // need to use OR because all the conditions should be false
-            while (smallCenter.isEndOfArrivals() || mediumCenter.isEndOfArrivals() || largeCenter.isEndOfArrivals() || queue.isEmpty() || number != 0) {
-                // Retrieving next event to be processed
-                event = queue.pop();
-                if (event.type == EventType.SAVE_STAT) {
-//                    System.out.println("[DEBUG] SAVE_STAT at t=" + event.time);
-//                    System.out.println("  smallObs size=" + smallCenterObservation.size());
-//                    System.out.println("  medObs size="   + mediumCenterObservation.size());
-//                    System.out.println("  largObs size="  + largeCenterObservation.size());
-                    smallCenter.updateObservations(smallCenterObservation);
-                    mediumCenter.updateObservations(mediumCenterObservation);
-                    largeCenter.updateObservations(largeCenterObservation);
-                    continue;
-                }
-                msqTime.next = event.time;
-
-                // Updating areas
-                updateAreas(msqTime);
-
-                // Advancing the clock
-                msqTime.current = msqTime.next;
-
-                // Processing the event based on its type
-                processCurrentEvent(event, msqTime, queue);
-                number = getTotalNumberOfJobsInSystem();
-            }
-
-            // Writing observations for current run
-            if (shouldTrackObservations) {
-                writeObservations(observationsPath);
-                resetObservations();
-            }
-
-            // Saving statistics for current run
-            saveAllStats();
+        SeedSchedule seeds = new SeedSchedule(seed, rngStreamIndex);
 
-            // Generating next seed
-            rngs.selectStream(rngStreamIndex);
-            seeds[i + 1] = rngs.getSeed();
+        CenterFactory factory = new CenterFactory(false);
+        // with antithetic pairs the runs 2k and 2k+1 share seed k, the second one on 1 - U, and
+        // every pair is one observation: done and the waves count pairs
+        int pairSize = antitheticPairs ? 2 : 1;
+        SequentialStopping stopping = new SequentialStopping(config, runsNumber / pairSize);
+        int done = 0;
+        try (ReplicationExecutor executor = new ReplicationExecutor(replicationThreads)) {
+            do {
+                int wave = sequentialStopping ? stopping.nextWave(done, executor.getParallelism()) : runsNumber / pairSize;
+                List<ReplicationResult> replications = executor.run(done * pairSize, (done + wave) * pairSize, i ->
+                        new FiniteReplication(factory, eventQueueFactory, approximateServiceAsExponential, shouldTrackObservations, intervalLength, stop).run(seeds.seed(i / pairSize), i % pairSize == 1));
+                done += wave;
+
+                // merging the runs in replication order
+                for (int i = 0; i < replications.size(); i += pairSize) {
+                    ReplicationResult replication = replications.get(i);
+                    // Writing observations for current run
+                    if (shouldTrackObservations) {
+                        writeObservations(observationsPath, replication);
+                    }
+
+                    // Saving statistics for current run
+                    if (antitheticPairs) {
+                        ReplicationResult antithetic = replications.get(i + 1);
+                        if (shouldTrackObservations) {
+                            writeObservations(observationsPath, antithetic);
+                        }
+                        saveAllStats(replication, antithetic);
+                    } else {
+                        saveAllStats(replication);
+                    }
+                }
+            } while (sequentialStopping && !stopping.isDone(done, aggregateStatistics()));
+        }
+        if (sequentialStopping) {
+            System.out.println("Replications used: " + done * pairSize);
         }
 
         System.out.println(simulationType + " HAS JUST FINISHED");
@@ -150,67 +128,24 @@ public class FiniteSimulationRunner {
         smallCenter = factory.createSmallCenter(approximateServiceAsExponential, false);
         mediumCenter = factory.createMediumCenter(approximateServiceAsExponential, false);
         largeCenter = factory.createLargeCenter(approximateServiceAsExponential, false);
+        // the runs are kept one by one for the results csv and for the control variates of the
+        // exponential model, otherwise only their accumulators
+        boolean retainSeries = writeResultsCsv || approximateServiceAsExponential;
+        for (SimpleCenter center : List.of(smallCenter, mediumCenter, largeCenter)) {
+            center.getStatistics().setRetainSeries(retainSeries);
+        }
     }
 
-    private void resetCenters(Rngs rngs, EventQueue queue) {
-        // Initialize small
-        smallCenter.start(rngs, start);
-        smallCenter.setStop(stop);
-
-        //generating first arrival
-        double time = smallCenter.getArrival();
-        MsqEvent firstEvent = new MsqEvent(ARRIVAL_SMALL_CENTER, time);
-        queue.add(firstEvent);
-
-        // Initialize medium
-        mediumCenter.start(rngs, start);
-        mediumCenter.setStop(stop);
-
-        //generating first arrival
-        time = mediumCenter.getArrival();
-        firstEvent = new MsqEvent(ARRIVAL_MEDIUM_CENTER, time);
-        queue.add(firstEvent);
-
-        // Initialize large
-        largeCenter.start(rngs, start);
-        largeCenter.setStop(stop);
-
-        //generating first arrival
-        time = largeCenter.getArrival();
-        firstEvent = new MsqEvent(EventType.ARRIVAL_LARGE_CENTER, time);
-        queue.add(firstEvent);
-    }
-
-    private void processCurrentEvent(MsqEvent event, MsqTime msqTime, EventQueue events) {
-        switch (event.type) {
-            case ARRIVAL_SMALL_CENTER:
-                smallCenter.processArrival(event, msqTime, events);
-                smallCenter.generateNextArrival(events, ARRIVAL_SMALL_CENTER);
-                break;
-            case COMPLETION_SMALL_CENTER:
-                smallCenter.processCompletion(event, msqTime, events);
-                break;
-            case ARRIVAL_MEDIUM_CENTER:
-                mediumCenter.processArrival(event, msqTime, events);
-                mediumCenter.generateNextArrival(events, ARRIVAL_MEDIUM_CENTER);
-                break;
-            case COMPLETION_MEDIUM_CENTER:
-                mediumCenter.processCompletion(event, msqTime, events);
-                break;
-            case ARRIVAL_LARGE_CENTER:
-                largeCenter.processArrival(event, msqTime, events);
-                largeCenter.generateNextArrival(events, ARRIVAL_LARGE_CENTER);
-                break;
-            case COMPLETION_LARGE_CENTER:
-                largeCenter.processCompletion(event, msqTime, events);
-                break;
-        }
+    private void saveAllStats(ReplicationResult replication) {
+        smallCenter.getStatistics().append(replication.statistics(0));
+        mediumCenter.getStatistics().append(replication.statistics(1));
+        largeCenter.getStatistics().append(replication.statistics(2));
     }
 
-    private void saveAllStats() {
-        smallCenter.saveStats();
-        mediumCenter.saveStats();
-        largeCenter.saveStats();
+    private void saveAllStats(ReplicationResult replication, ReplicationResult antithetic) {
+        smallCenter.getStatistics().appendMean(replication.statistics(0), antithetic.statistics(0));
+        mediumCenter.getStatistics().appendMean(replication.statistics(1), antithetic.statistics(1));
+        largeCenter.getStatistics().appendMean(replication.statistics(2), antithetic.statistics(2));
     }
 
     private void modelVerification(String simulationType) {
@@ -226,6 +161,10 @@ public class FiniteSimulationRunner {
         List<Verification.VerificationResult> verificationResultList = verifyConfidenceIntervals(simulationType, meanStatisticsList, comparisonResultList, confidenceIntervalsList);
 
         printFinalResults(verificationResultList, 0, 0);
+
+        // Same response times, adjusted with the controls of known mean
+        List<ControlVariates.ControlVariateResult> controlVariateResultList = applyControlVariates(simulationType, analyticalResultList, List.of(smallCenter.getStatistics(), mediumCenter.getStatistics(), largeCenter.getStatistics()));
+        printControlVariates(controlVariateResultList, (int) smallCenter.getStatistics().getCount());
     }
 
     private List<MeanStatistics> aggregateMeanStatistics() {
@@ -243,6 +182,14 @@ public class FiniteSimulationRunner {
         System.out.println("Average response time in LARGE CENTER: " + largeCenter.getMeanStatistics().meanResponseTime);
     }
 
+    private List<BasicStatistics> aggregateStatistics() {
+        List<BasicStatistics> statisticsList = new ArrayList<>();
+        statisticsList.add(smallCenter.getStatistics());
+        statisticsList.add(mediumCenter.getStatistics());
+        statisticsList.add(largeCenter.getStatistics());
+        return statisticsList;
+    }
+
     private List<ConfidenceIntervals> aggregateConfidenceIntervals() {
         List<ConfidenceIntervals> confidenceIntervalsList = new ArrayList<>();
         confidenceIntervalsList.add(createConfidenceIntervals(smallCenter.getStatistics()));
@@ -252,64 +199,29 @@ public class FiniteSimulationRunner {
     }
 
     private ConfidenceIntervals createConfidenceIntervals(BasicStatistics stats) {
-        return new ConfidenceIntervals(
-                stats.meanResponseTimeList, stats.meanQueueTimeList, stats.meanServiceTimeList,
-                stats.meanSystemPopulationList, stats.meanQueuePopulationList, stats.meanUtilizationList, stats.lambdaList
-        );
+        return new ConfidenceIntervals(stats);
     }
 
     private void writeAllStats(String simulationType, long seed) {
-        System.out.println("Writing csv files with stats for all the centers.");
+        if (writeResultsCsv) {
+            System.out.println("Writing csv files with stats for all the centers.");
+        }
         smallCenter.writeStats(simulationType, seed);
         mediumCenter.writeStats(simulationType, seed);
         largeCenter.writeStats(simulationType, seed);
     }
 
-    private long getTotalNumberOfJobsInSystem() {
-        return smallCenter.getNumberOfJobsInNode() +
-                mediumCenter.getNumberOfJobsInNode() +
-                largeCenter.getNumberOfJobsInNode();
-    }
-
-    private void updateAreas(MsqTime msqTime) {
-        // Updating the areas
-        smallCenter.setArea(msqTime);
-        mediumCenter.setArea(msqTime);
-        largeCenter.setArea(msqTime);
-    }
-
     private void initObservations(String path) {
         FileUtils.deleteDirectory(path);
         System.out.println("[DEBUG] initObservations path=" + path);
-
         System.out.println("[DEBUG] smallCenter servers=" + smallCenter.getServersNumber());
-        smallCenterObservation = new ArrayList<>();
-        for (int i = 0; i < smallCenter.getServersNumber(); i++) {
-            smallCenterObservation.add(new Observations("%s_%d".formatted(smallCenter.getCenterName(), i + 1)));
-        }
-
         System.out.println("[DEBUG] mediumCenter servers=" + mediumCenter.getServersNumber());
-        mediumCenterObservation = new ArrayList<>();
-        for (int i = 0; i < mediumCenter.getServersNumber(); i++) {
-            mediumCenterObservation.add(new Observations("%s_%d".formatted(mediumCenter.getCenterName(), i + 1)));
-        }
-
         System.out.println("[DEBUG] largeCenter servers=" + largeCenter.getServersNumber());
-        largeCenterObservation = new ArrayList<>();
-        for (int i = 0; i < largeCenter.getServersNumber(); i++) {
-            largeCenterObservation.add(new Observations("%s_%d".formatted(largeCenter.getCenterName(), i + 1)));
-        }
-    }
-
-    private void resetObservations() {
-        smallCenterObservation.forEach(Observations::reset);
-        mediumCenterObservation.forEach(Observations::reset);
-        largeCenterObservation.forEach(Observations::reset);
     }
 
-    private void writeObservations(String path) {
-        PlotUtils.writeObservations(path, smallCenterObservation);
-        PlotUtils.writeObservations(path, mediumCenterObservation);
-        PlotUtils.writeObservations(path, largeCenterObservation);
+    private void writeObservations(String path, ReplicationResult replication) {
+        for (List<Observations> observations : replication.observations()) {
+            PlotUtils.writeObservations(path, observations);
+        }
     }
 }
@@ -0,0 +1,99 @@
+package org.pmcsn.controller;
+
+import org.pmcsn.configuration.CenterFactory;
+import org.pmcsn.configuration.ConfigurationManager;
+import org.pmcsn.configuration.EventQueueFactory;
+import org.pmcsn.libraries.SeedSchedule;
+import org.pmcsn.model.AbstractStatistics.Index;
+import org.pmcsn.model.BasicStatistics;
+import org.pmcsn.model.PairedMetric;
+
+import java.util.List;
+
+import static org.pmcsn.model.AbstractStatistics.Index.*;
+import static org.pmcsn.utils.PrintUtils.printPairedResults;
+
+// Paired experiment between the baseline and the improved finite-horizon models: replication i
+// of both models starts from the same seed and runs on common random numbers, so each center
+// sees the same arrivals and every exogenous job the same service in the two models. The
+// improvement is estimated by the per-run differences of the centers the models share.
+public class PairedComparisonRunner {
+    private static final ConfigurationManager config = new ConfigurationManager();
+    private final double stop = config.getDouble("general", "finiteSimObservationTime");
+    private final long seed;
+    private final int runsNumber = config.getInt("general", "runsNumber");
+    private final int intervalLength = config.getInt("general", "bmIntervalLength");
+    private final int streamIndex = config.getInt("general", "seedStreamIndex");
+    private final int replicationThreads = config.getInt("general", "replicationThreads");
+    private final boolean writeResultsCsv = config.getBoolean("general", "writeResultsCsv");
+    private final EventQueueFactory eventQueueFactory = new EventQueueFactory();
+
+    private record Pair(ReplicationResult baseline, ReplicationResult improved) {
+    }
+
+    public PairedComparisonRunner() {
+        this(123456789L);
+    }
+
+    public PairedComparisonRunner(long seed) {
+        this.seed = seed;
+    }
+
+    public void runPairedComparison(boolean approximateServiceAsExponential) throws Exception {
+        String simulationType = approximateServiceAsExponential ? "PAIRED_COMPARISON_EXPONENTIAL" : "PAIRED_COMPARISON";
+        System.out.println("\nRUNNING " + simulationType + "...");
+
+        // the same centers the two runners build, on common random numbers
+        CenterFactory factory = new CenterFactory(false);
+        factory.setCommonRandomNumbers(true);
+        SeedSchedule seeds = new SeedSchedule(seed, streamIndex);
+
+        List<Pair> pairs;
+        try (ReplicationExecutor executor = new ReplicationExecutor(replicationThreads)) {
+            pairs = executor.run(0, runsNumber, i -> new Pair(
+                    new FiniteReplication(factory, eventQueueFactory, approximateServiceAsExponential, false, intervalLength, stop).run(seeds.seed(i)),
+                    new FiniteImprovedReplication(factory, eventQueueFactory, approximateServiceAsExponential, false, intervalLength, stop).run(seeds.seed(i))));
+        }
+
+        System.out.println(simulationType + " HAS JUST FINISHED.");
+
+        // the small, medium and large centers come first in both models
+        for (int center = 0; center < 3; center++) {
+            compare(simulationType, pairs, center);
+        }
+    }
+
+    private void compare(String simulationType, List<Pair> pairs, int center) {
+        String centerName = pairs.getFirst().baseline.statistics(center).getCenterName();
+        BasicStatistics baseline = new BasicStatistics(centerName);
+        BasicStatistics improved = new BasicStatistics(centerName);
+        for (Pair pair : pairs) {
+            baseline.append(pair.baseline.statistics(center));
+            improved.append(pair.improved.statistics(center));
+        }
+
+        List<PairedMetric> pairedMetrics = List.of(
+                new PairedMetric("E[Ts]", baseline.meanResponseTimeList, improved.meanResponseTimeList),
+                new PairedMetric("E[Tq]", baseline.meanQueueTimeList, improved.meanQueueTimeList),
+                new PairedMetric("E[s]", baseline.meanServiceTimeList, improved.meanServiceTimeList),
+                new PairedMetric("E[Ns]", baseline.meanSystemPopulationList, improved.meanSystemPopulationList),
+                new PairedMetric("E[Nq]", baseline.meanQueuePopulationList, improved.meanQueuePopulationList),
+                new PairedMetric("ρ", baseline.meanUtilizationList, improved.meanUtilizationList),
+                new PairedMetric("λ", baseline.lambdaList, improved.lambdaList)
+        );
+
+        // Writing the per-run differences, in the layout of the results csv
+        if (writeResultsCsv) {
+            BasicStatistics differences = new BasicStatistics(centerName);
+            Index[] columns = {ResponseTime, QueueTime, ServiceTime, SystemPopulation, QueuePopulation, Utilization, Lambda};
+            for (int i = 0; i < columns.length; i++) {
+                for (double difference : pairedMetrics.get(i).differences) {
+                    differences.addValue(columns[i], difference);
+                }
+            }
+            differences.writeStats(simulationType, seed);
+        }
+
+        printPairedResults(centerName, pairedMetrics, pairs.size());
+    }
+}
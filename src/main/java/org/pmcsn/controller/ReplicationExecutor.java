@@ -0,0 +1,54 @@
+package org.pmcsn.controller;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+// Runs independent replications concurrently on a ForkJoinPool and hands their results back in
+// replication order, so that whatever is merged from them does not depend on the scheduling.
+public class ReplicationExecutor implements AutoCloseable {
+    @FunctionalInterface
+    public interface Replication<T> {
+        T run(int index) throws Exception;
+    }
+
+    private final ForkJoinPool pool;
+
+    // threads <= 0 means one thread per available core
+    public ReplicationExecutor(int threads) {
+        this.pool = new ForkJoinPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    // runs the replications with index in [from, to) and returns their results ordered by index
+    public <T> List<T> run(int from, int to, Replication<T> replication) throws Exception {
+        List<Callable<T>> tasks = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            int index = i;
+            tasks.add(() -> replication.run(index));
+        }
+        List<T> results = new ArrayList<>();
+        for (Future<T> future : pool.invokeAll(tasks)) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof Exception cause) {
+                    throw cause;
+                }
+                throw new RuntimeException(e.getCause());
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+}
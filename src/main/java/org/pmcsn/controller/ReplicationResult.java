@@ -0,0 +1,20 @@
+package org.pmcsn.controller;
+
+import org.pmcsn.model.BasicStatistics;
+import org.pmcsn.model.Observations;
+
+import java.util.List;
+
+// What a finished replication hands back to its runner: the statistics of its run and the
+// observations of its centers, in the order the replication creates the centers. It keeps no
+// reference to the centers, Rngs or event queue, which become garbage once the replication has run.
+record ReplicationResult(List<BasicStatistics> statistics, List<List<Observations>> observations) {
+    BasicStatistics statistics(int center) {
+        return statistics.get(center);
+    }
+
+    // the statistics of this run, one row per center (see BasicStatistics.getRunRow)
+    List<String> toRows() {
+        return statistics.stream().map(center -> center.getRunRow(0)).toList();
+    }
+}
@@ -0,0 +1,58 @@
+package org.pmcsn.controller;
+
+import org.pmcsn.configuration.ConfigurationManager;
+import org.pmcsn.model.Accumulator;
+import org.pmcsn.model.BasicStatistics;
+
+import java.util.List;
+
+import static org.pmcsn.model.AbstractStatistics.Index.ResponseTime;
+import static org.pmcsn.model.AbstractStatistics.Index.Utilization;
+
+// Sequential procedure for independent replications: after a pilot wave, replications are added
+// in waves as wide as the executor until the relative half-width of E[Ts] and ρ of every center
+// is below the target, or the maximum number of replications is reached.
+public class SequentialStopping {
+    private final double targetRelativeHalfWidth;
+    private final int pilotRunsNumber;
+    private final int maxRunsNumber;
+    private final double levelOfConfidence;
+
+    public SequentialStopping(ConfigurationManager config, int maxRunsNumber) {
+        this.targetRelativeHalfWidth = config.getDouble("general", "targetRelativeHalfWidth");
+        this.pilotRunsNumber = config.getInt("general", "pilotRunsNumber");
+        this.maxRunsNumber = maxRunsNumber;
+        this.levelOfConfidence = config.getDouble("general", "levelOfConfidence");
+        if (pilotRunsNumber < 2) {
+            throw new IllegalArgumentException("At least 2 pilot runs are needed for a confidence interval: general.pilotRunsNumber=" + pilotRunsNumber);
+        }
+    }
+
+    // number of replications to launch after the first done ones
+    public int nextWave(int done, int parallelism) {
+        int wave = done == 0 ? pilotRunsNumber : parallelism;
+        return Math.min(wave, maxRunsNumber - done);
+    }
+
+    public boolean isDone(int done, List<BasicStatistics> statistics) {
+        if (done >= maxRunsNumber) {
+            return true;
+        }
+        for (BasicStatistics stats : statistics) {
+            if (!isPrecise(stats.getAccumulator(ResponseTime)) || !isPrecise(stats.getAccumulator(Utilization))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isPrecise(Accumulator values) {
+        double mean = values.getMean();
+        double halfWidth = values.getConfidenceInterval(levelOfConfidence);
+        if (mean == 0.0) {
+            return halfWidth == 0.0;
+        }
+        // NaN and infinite estimates never satisfy the target
+        return halfWidth / Math.abs(mean) <= targetRelativeHalfWidth;
+    }
+}
@@ -0,0 +1,200 @@
+/* -------------------------------------------------------------------------
+ * MRG32k3a combined multiple recursive generator with streams and
+ * substreams, after P. L'Ecuyer, R. Simard, E. J. Chen and W. D. Kelton,
+ * "An Object-Oriented Random-Number Package with Many Long Streams and
+ * Substreams", Operations Research 50(6), 2002.
+ *
+ * The period is about 2^191.  Starting from the package seed (12345 x 6),
+ * stream j begins j * 2^127 steps ahead and is split into substreams of
+ * 2^76 steps.  plantSeeds(x) starts every stream at its substream x, so
+ * that the replications seeded with different values of x draw from
+ * disjoint pieces of the sequence, for any number of streams.
+ * The jump matrices are computed once by repeated squaring.
+ * -------------------------------------------------------------------------
+ */
+package org.pmcsn.libraries;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+public class Mrg32k3a implements RngBackend {
+  static final long M1   = 4294967087L;
+  static final long M2   = 4294944443L;
+  static final long A12  = 1403580L;
+  static final long A13N = 810728L;
+  static final long A21  = 527612L;
+  static final long A23N = 1370589L;
+  static final double NORM = 2.328306549295727688e-10;   /* 1 / (M1 + 1) */
+
+  static final long[] PACKAGE_SEED = {12345, 12345, 12345, 12345, 12345, 12345};
+
+  /* one step of each component, then 2^76 (substream) and 2^127 (stream) steps */
+  static final long[][] A1 = {{0, 1, 0}, {0, 0, 1}, {M1 - A13N, A12, 0}};
+  static final long[][] A2 = {{0, 1, 0}, {0, 0, 1}, {M2 - A23N, 0, A21}};
+  static final long[][] A1P76  = matPow2(A1, 76, M1);
+  static final long[][] A2P76  = matPow2(A2, 76, M2);
+  static final long[][] A1P127 = matPow2(A1, 127, M1);
+  static final long[][] A2P127 = matPow2(A2, 127, M2);
+
+  private long substream = 0;
+  private long[][] substreamJump1 = identity();
+  private long[][] substreamJump2 = identity();
+  /* first state of every stream (substream 0) and current state, 6 longs per stream */
+  private long[] streamStart = new long[0];
+  private long[] state = new long[0];
+  private int streams = 0;
+
+  public String name() {
+    return "mrg32k3a";
+  }
+
+  /* the states of all the streams share one array, 6 longs each */
+  public int streams() {
+    return Integer.MAX_VALUE / 6;
+  }
+
+  public void plantSeeds(long x) {
+    if (x < 0)
+      throw new IllegalArgumentException("Invalid substream: " + x);
+    substream = x;
+    substreamJump1 = matPow(A1P76, x, M1);
+    substreamJump2 = matPow(A2P76, x, M2);
+    for (int j = 0; j < streams; j++)
+      startSubstream(j);
+  }
+
+  public double random(int stream) {
+    long[] s = stateOf(stream);
+    return next(s, 6 * stream);
+  }
+
+  public void fill(int stream, double[] out, int from, int to) {
+    long[] s = stateOf(stream);
+    int o = 6 * stream;
+    for (int i = from; i < to; i++)
+      out[i] = next(s, o);
+  }
+
+  private static double next(long[] s, int o) {
+    /* component 1 */
+    long p1 = (A12 * s[o + 1] - A13N * s[o]) % M1;
+    if (p1 < 0)
+      p1 += M1;
+    s[o] = s[o + 1];
+    s[o + 1] = s[o + 2];
+    s[o + 2] = p1;
+    /* component 2 */
+    long p2 = (A21 * s[o + 5] - A23N * s[o + 3]) % M2;
+    if (p2 < 0)
+      p2 += M2;
+    s[o + 3] = s[o + 4];
+    s[o + 4] = s[o + 5];
+    s[o + 5] = p2;
+    /* combination */
+    return ((p1 > p2) ? (p1 - p2) : (p1 - p2 + M1)) * NORM;
+  }
+
+  /* state array holding the given stream, streams are created on first use */
+  private long[] stateOf(int stream) {
+    if (stream < 0)
+      throw new IllegalArgumentException("Invalid stream: " + stream);
+    if (stream >= streams)
+      grow(stream + 1);
+    return state;
+  }
+
+  private void grow(int n) {
+    int capacity = Math.max(n, 2 * streams);
+    streamStart = Arrays.copyOf(streamStart, 6 * capacity);
+    state = Arrays.copyOf(state, 6 * capacity);
+    for (int j = streams; j < n; j++) {
+      if (j == 0)
+        System.arraycopy(PACKAGE_SEED, 0, streamStart, 0, 6);
+      else
+        jump(A1P127, A2P127, streamStart, 6 * (j - 1), streamStart, 6 * j);
+      startSubstream(j);
+    }
+    streams = n;
+  }
+
+  private void startSubstream(int j) {
+    jump(substreamJump1, substreamJump2, streamStart, 6 * j, state, 6 * j);
+  }
+
+  private static void jump(long[][] a1, long[][] a2, long[] from, int f, long[] to, int t) {
+    long[] v1 = matVec(a1, from[f], from[f + 1], from[f + 2], M1);
+    long[] v2 = matVec(a2, from[f + 3], from[f + 4], from[f + 5], M2);
+    System.arraycopy(v1, 0, to, t, 3);
+    System.arraycopy(v2, 0, to, t + 3, 3);
+  }
+
+  public void writeState(DataOutput out) throws IOException {
+    out.writeLong(substream);
+    out.writeInt(streams);
+    for (int i = 0; i < 6 * streams; i++)
+      out.writeLong(state[i]);
+  }
+
+  public void readState(DataInput in) throws IOException {
+    plantSeeds(in.readLong());
+    int n = in.readInt();
+    if (n > streams)
+      grow(n);
+    for (int i = 0; i < 6 * n; i++)
+      state[i] = in.readLong();
+  }
+
+  /* ------------------------- modular 3x3 algebra ------------------------- */
+
+  /* a * b mod m for 0 <= a, b < m < 2^32, without overflowing a long */
+  static long mulMod(long a, long b, long m) {
+    long high = a * (b >>> 16) % m;
+    return ((high << 16) + a * (b & 0xffff)) % m;
+  }
+
+  static long[][] matMul(long[][] a, long[][] b, long m) {
+    long[][] c = new long[3][3];
+    for (int i = 0; i < 3; i++)
+      for (int j = 0; j < 3; j++) {
+        long sum = 0;
+        for (int k = 0; k < 3; k++)
+          sum = (sum + mulMod(a[i][k], b[k][j], m)) % m;
+        c[i][j] = sum;
+      }
+    return c;
+  }
+
+  static long[] matVec(long[][] a, long x0, long x1, long x2, long m) {
+    long[] v = new long[3];
+    for (int i = 0; i < 3; i++)
+      v[i] = ((mulMod(a[i][0], x0, m) + mulMod(a[i][1], x1, m)) % m + mulMod(a[i][2], x2, m)) % m;
+    return v;
+  }
+
+  /* a^(2^e) mod m */
+  static long[][] matPow2(long[][] a, int e, long m) {
+    long[][] b = a;
+    for (int i = 0; i < e; i++)
+      b = matMul(b, b, m);
+    return b;
+  }
+
+  /* a^n mod m */
+  static long[][] matPow(long[][] a, long n, long m) {
+    long[][] result = identity();
+    long[][] b = a;
+    while (n > 0) {
+      if ((n & 1) == 1)
+        result = matMul(result, b, m);
+      b = matMul(b, b, m);
+      n >>= 1;
+    }
+    return result;
+  }
+
+  private static long[][] identity() {
+    return new long[][]{{1, 0, 0}, {0, 1, 0}, {0, 0, 1}};
+  }
+}
@@ -0,0 +1,33 @@
+/* -------------------------------------------------------------------------
+ * Generator behind an Rngs in place of the legacy Lehmer streams.
+ *
+ * A backend holds any number of independent streams, indexed 0, 1, 2, ...
+ * and created on first use: plantSeeds(x) sets the state of all of them
+ * from x, as Rngs.plantSeeds() does with the 256 Lehmer streams.
+ * Uniforms are in the open interval (0, 1), so that 1 - u (antithetic
+ * runs) is in (0, 1) as well.
+ * -------------------------------------------------------------------------
+ */
+package org.pmcsn.libraries;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+public interface RngBackend {
+  String name();
+
+  /* number of streams, indexed 0 .. streams() - 1 */
+  int streams();
+
+  void plantSeeds(long x);
+
+  double random(int stream);
+
+  /* out[from..to) gets the values of as many random(stream) calls */
+  void fill(int stream, double[] out, int from, int to);
+
+  void writeState(DataOutput out) throws IOException;
+
+  void readState(DataInput in) throws IOException;
+}
@@ -0,0 +1,81 @@
+/* -------------------------------------------------------------------------
+ * Buffered view of one stream of an Rngs: the uniforms are drawn in blocks
+ * with Rngs.fill() and handed out one at a time, without selecting the
+ * stream on every draw.  The values are exactly those random() would
+ * return on that stream.
+ *
+ * The view draws ahead: while it is in use it must be the only consumer of
+ * its stream, and after the state of the stream is changed from outside
+ * (plantSeeds, putSeed) the block in hand must be discarded with reset().
+ * The uniforms drawn ahead are part of the state of a run: writeState()
+ * saves them next to Rngs.writeState().
+ * -------------------------------------------------------------------------
+ */
+package org.pmcsn.libraries;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+public class RngStream {
+  public static final int BLOCK = 1024;
+
+  private final Rngs     rngs;
+  private final int      index;
+  private final double[] buffer;
+  private int            cursor;
+
+  public RngStream(Rngs rngs, int index) {
+    this(rngs, index, BLOCK);
+  }
+
+  public RngStream(Rngs rngs, int index, int size) {
+    if (size <= 0)
+      throw new IllegalArgumentException("Invalid block size: " + size);
+    this.rngs   = rngs;
+    this.index  = index;
+    this.buffer = new double[size];
+    this.cursor = size;
+  }
+
+  public int getIndex() {
+    return index;
+  }
+
+  public double random() {
+    if (cursor == buffer.length) {
+      rngs.fill(index, buffer, 0, buffer.length);
+      cursor = 0;
+    }
+    return buffer[cursor++];
+  }
+
+  /* out[from..to) gets the next to - from uniforms of the view */
+  public void fill(double[] out, int from, int to) {
+    int n = Math.min(buffer.length - cursor, to - from);
+    System.arraycopy(buffer, cursor, out, from, n);
+    cursor += n;
+    if (from + n < to)
+      rngs.fill(index, out, from + n, to);
+  }
+
+  /* discards the uniforms drawn ahead */
+  public void reset() {
+    cursor = buffer.length;
+  }
+
+  public void writeState(DataOutput out) throws IOException {
+    out.writeInt(cursor);
+    for (int i = cursor; i < buffer.length; i++)
+      out.writeDouble(buffer[i]);
+  }
+
+  public void readState(DataInput in) throws IOException {
+    int c = in.readInt();
+    if (c < 0 || c > buffer.length)
+      throw new IOException("Invalid stream buffer position: " + c);
+    cursor = c;
+    for (int i = cursor; i < buffer.length; i++)
+      buffer[i] = in.readDouble();
+  }
+}
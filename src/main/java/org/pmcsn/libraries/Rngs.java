@@ -36,6 +36,8 @@ package org.pmcsn.libraries;
 
 
 import java.io.BufferedReader;
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.Date;
@@ -66,6 +68,13 @@ public class Rngs {
   int  stream        = 0;          /* stream index, 0 is the default */
   int  initialized   = 0;          /* test for stream initialization */
   /* Barry Lawson 8 Nov 2007 */
+
+  boolean antithetic = false;      /* return 1 - u instead of u      */
+
+  /* Other generators behind the same API (see RngBackend): with a backend
+   * the streams are unlimited in number and come from it, while the
+   * Lehmer streams above are unused.  null is the legacy generator. */
+  RngBackend backend = null;
   
 
   public static void main(String[] args) {
@@ -87,6 +96,20 @@ public class Rngs {
     seed[0] = DEFAULT;
     /* Barry Lawson 8 Nov 2007 */
   }
+
+  public Rngs(RngBackend backend) {
+    this();
+    this.backend = backend;
+  }
+
+  public String getBackendName() {
+    return (backend == null) ? "lehmer" : backend.name();
+  }
+
+  /* number of distinct streams: past it the Lehmer streams wrap around */
+  public int getStreams() {
+    return (backend == null) ? STREAMS : backend.streams();
+  }
   
   public double random() {
 /* ----------------------------------------------------------------
@@ -94,6 +117,10 @@ public class Rngs {
  * between 0.0 and 1.0.
  * ----------------------------------------------------------------
  */
+    if (backend != null) {
+      double u = backend.random(stream);
+      return antithetic ? 1.0 - u : u;
+    }
     long Q = MODULUS / MULTIPLIER;
     long R = MODULUS % MULTIPLIER;
     long t;
@@ -103,9 +130,71 @@ public class Rngs {
       seed[stream] = t;
     else
       seed[stream] = t + MODULUS;
+    if (antithetic)
+      return ((double) (MODULUS - seed[stream]) / MODULUS);
     return ((double) seed[stream] / MODULUS);
   }
 
+  public void fill(int index, double[] out, int from, int to) {
+/* ----------------------------------------------------------------------
+ * Bulk version of random(): out[from..to) gets the values that as many
+ * calls of random() on stream 'index' would return, and the stream is
+ * left in the same state.  The selected stream is not changed.
+ * Since MODULUS = 2^31 - 1, the Lehmer step a*x mod m is computed as
+ * (a*x & m) + (a*x >> 31) instead of the division-based Schrage step
+ * (a*x < 2^47, no overflow): same sequence, no divisions.
+ * ----------------------------------------------------------------------
+ */
+    int  s = index % STREAMS;
+    long m = MODULUS;
+    long a = MULTIPLIER;
+    long x;
+    int  i;
+
+    if (backend != null) {
+      backend.fill(index, out, from, to);
+      if (antithetic)
+        for (i = from; i < to; i++)
+          out[i] = 1.0 - out[i];
+      return;
+    }
+    if ((initialized == 0) && (s != 0))   /* as in selectStream() */
+      plantSeeds(DEFAULT);
+    x = seed[s];
+    if (antithetic) {
+      for (i = from; i < to; i++) {
+        long p = a * x;
+        x = (p & m) + (p >>> 31);
+        if (x >= m)
+          x -= m;
+        out[i] = (double) (m - x) / m;
+      }
+    } else {
+      for (i = from; i < to; i++) {
+        long p = a * x;
+        x = (p & m) + (p >>> 31);
+        if (x >= m)
+          x -= m;
+        out[i] = (double) x / m;
+      }
+    }
+    seed[s] = x;
+  }
+
+  public void setAntithetic(boolean antithetic) {
+/* -----------------------------------------------------------------
+ * In antithetic mode every stream returns 1 - u in place of u: a run
+ * seeded like another one but antithetic is its antithetic variate.
+ * The state of the streams is the same in both modes.
+ * -----------------------------------------------------------------
+ */
+    this.antithetic = antithetic;
+  }
+
+  public boolean isAntithetic() {
+    return antithetic;
+  }
+
   public void plantSeeds(long x) {
 /* ---------------------------------------------------------------------
  * Use this function to set the state of all the random number generator
@@ -121,6 +210,10 @@ public class Rngs {
     int  s;
 
     initialized = 1;
+    if (backend != null) {
+      backend.plantSeeds(x);
+      return;
+    }
     s = stream;                            /* remember the current stream */
     selectStream(0);                       /* change to stream 0          */
     putSeed(x);                            /* set seed[0]                 */
@@ -145,6 +238,8 @@ public class Rngs {
  */
     boolean ok = false;
 
+    if (backend != null)
+      throw new UnsupportedOperationException("putSeed() is only defined for the Lehmer streams");
     if (x > 0)
       x = x % MODULUS;                            /* correct if x is too large  */
     if (x < 0) {
@@ -179,6 +274,8 @@ public class Rngs {
  * generator stream.
  * ---------------------------------------------------------------
  */
+    if (backend != null)
+      throw new UnsupportedOperationException("getSeed() is only defined for the Lehmer streams");
     return seed[stream];
   }
 
@@ -188,11 +285,44 @@ public class Rngs {
  * stream -- that stream from which the next random number will come.
  * ------------------------------------------------------------------
  */
+    if (backend != null) {
+      if (index < 0)
+        throw new IllegalArgumentException("Invalid stream: " + index);
+      stream = index;                          /* no limit on the streams */
+      return;
+    }
     stream = index % STREAMS;
     if ((initialized == 0) && (stream != 0))   /* protect against        */
       plantSeeds(DEFAULT);                     /* un-initialized streams */
   }
   
+  public void writeState(DataOutput out) throws IOException {
+/* ------------------------------------------------------------------
+ * Use this function to save the state of all the streams (checkpoints):
+ * readState() on any instance continues the same sequences.
+ * ------------------------------------------------------------------
+ */
+    if (backend == null)
+      for (int j = 0; j < STREAMS; j++)
+        out.writeLong(seed[j]);
+    else
+      backend.writeState(out);
+    out.writeInt(stream);
+    out.writeInt(initialized);
+    out.writeBoolean(antithetic);
+  }
+
+  public void readState(DataInput in) throws IOException {
+    if (backend == null)
+      for (int j = 0; j < STREAMS; j++)
+        seed[j] = in.readLong();
+    else
+      backend.readState(in);
+    stream = in.readInt();
+    initialized = in.readInt();
+    antithetic = in.readBoolean();
+  }
+
 /* ------------------------------------------------------------------
  * Use this (optional) function to test for a correct implementation.
  * ------------------------------------------------------------------
@@ -48,6 +48,14 @@ package org.pmcsn.libraries;
 public class Rvms{
     final double TINY = 1.0e-10;
     final double SQRT2PI = 2.506628274631;	/* sqrt(2 * pi) */
+
+    /* scratch arrays of logGamma, inGamma and inBeta, allocated once per
+     * instance so that evaluating a cdf or an idf does not allocate: an
+     * instance must not be shared between threads */
+    private final double[] lanczos = new double[6];
+    private final double[] fraction = new double[2];
+    private final double[] numerators = new double[3];
+    private final double[] denominators = new double[3];
     
     public Rvms(){}
     
@@ -554,7 +562,7 @@ public class Rvms{
 	 * ======================================================================== 
 	 */
     { 
-	double s[] = new double[6];
+	double s[] = lanczos;
 	double sum, temp;
 	int    i;
 
@@ -628,9 +636,9 @@ public class Rvms{
 	 */
     { 
 	double t, sum, term, factor, f, g;
-	double c[] = new double[2];
-	double p[] = new double[3];
-	double q[] = new double[3];
+	double c[] = fraction;
+	double p[] = numerators;
+	double q[] = denominators;
 	long   n;
 
 	if (x > 0.0)
@@ -693,8 +701,8 @@ public class Rvms{
 	 */
     { 
 	double t, factor, f, g, c;
-	double p[] = new double[3];
-	double q[] = new double[3];
+	double p[] = numerators;
+	double q[] = denominators;
 	boolean    swap;
 	long   n;
 
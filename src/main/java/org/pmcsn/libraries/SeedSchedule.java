@@ -0,0 +1,53 @@
+/* -------------------------------------------------------------------------
+ * Seed schedule for independent replications driven by Rngs.
+ *
+ * Historically replication k+1 is seeded with the state that stream
+ * 'streamIndex' holds at the end of replication k.  That stream is never
+ * drawn during a replication, so its state is the one planted by
+ * plantSeeds(), i.e. seed[k] * A256^streamIndex mod m.  By induction
+ *
+ *       seed[k] = seed[0] * A256^(streamIndex * k) mod m
+ *
+ * which is computed here directly by modular exponentiation (jump-ahead):
+ * any replication can be started without running the ones before it and
+ * there is no limit on the number of replications.
+ * -------------------------------------------------------------------------
+ */
+package org.pmcsn.libraries;
+
+public class SeedSchedule {
+  private final long modulus;
+  private final long seed;
+  private final long jump;       /* A256^streamIndex mod m: one replication */
+
+  public SeedSchedule(long seed, int streamIndex) {
+    if (seed <= 0)
+      throw new IllegalArgumentException("Invalid replication seed: " + seed);
+    Rngs rngs = new Rngs();
+    this.modulus = rngs.MODULUS;
+    this.seed = seed;
+    this.jump = modPow(rngs.A256, streamIndex % rngs.STREAMS, modulus);
+  }
+
+  /* initial state of replication k = 0, 1, 2, ... */
+  public long seed(long k) {
+    if (k < 0)
+      throw new IllegalArgumentException("Invalid replication index: " + k);
+    if (k == 0)
+      return seed;
+    return (seed % modulus) * modPow(jump, k, modulus) % modulus;
+  }
+
+  /* b^e mod m; m < 2^31, so every product fits in a long */
+  static long modPow(long b, long e, long m) {
+    long result = 1;
+    b %= m;
+    while (e > 0) {
+      if ((e & 1) == 1)
+        result = result * b % m;
+      b = b * b % m;
+      e >>= 1;
+    }
+    return result;
+  }
+}
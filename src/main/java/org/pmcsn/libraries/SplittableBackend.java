@@ -0,0 +1,111 @@
+/* -------------------------------------------------------------------------
+ * Streams split from a JDK splittable generator (java.util.random, LXM
+ * family, L64X128MixRandom by default).  plantSeeds(x) seeds a root
+ * generator with x and stream j is the j-th generator split from it; the
+ * splits are created in index order, so stream j is the same whatever the
+ * order the streams are first used in.
+ *
+ * The JDK generators do not expose their state: a checkpoint records the
+ * seed and the number of draws of every stream, and readState() replays
+ * them.  The LXM generators can be split but neither jumped nor leaped, so
+ * a resume costs one nextLong() per draw made before the checkpoint
+ * (about 5 s per 10^9 draws): it grows with the length of the run.
+ * -------------------------------------------------------------------------
+ */
+package org.pmcsn.libraries;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.random.RandomGenerator.SplittableGenerator;
+import java.util.random.RandomGeneratorFactory;
+
+public final class SplittableBackend implements RngBackend {
+  public static final String DEFAULT_ALGORITHM = "L64X128MixRandom";
+  private static final double ULP = 0x1.0p-52;
+
+  private final String algorithm;
+  private final RandomGeneratorFactory<SplittableGenerator> factory;
+  private long seed = 0;
+  private SplittableGenerator root;
+  private final List<SplittableGenerator> streams = new ArrayList<>();
+  private long[] draws = new long[0];
+
+  public SplittableBackend() {
+    this(DEFAULT_ALGORITHM);
+  }
+
+  public SplittableBackend(String algorithm) {
+    this.algorithm = algorithm;
+    RandomGeneratorFactory<SplittableGenerator> f = RandomGeneratorFactory.of(algorithm);
+    if (!f.isSplittable())
+      throw new IllegalArgumentException("Not a splittable generator: " + algorithm);
+    this.factory = f;
+    plantSeeds(0);
+  }
+
+  public String name() {
+    return algorithm;
+  }
+
+  public int streams() {
+    return Integer.MAX_VALUE;
+  }
+
+  public void plantSeeds(long x) {
+    seed = x;
+    root = factory.create(x);
+    streams.clear();
+    Arrays.fill(draws, 0);
+  }
+
+  public double random(int stream) {
+    SplittableGenerator g = streamOf(stream);
+    draws[stream]++;
+    return uniform(g.nextLong());
+  }
+
+  public void fill(int stream, double[] out, int from, int to) {
+    SplittableGenerator g = streamOf(stream);
+    for (int i = from; i < to; i++)
+      out[i] = uniform(g.nextLong());
+    draws[stream] += to - from;
+  }
+
+  /* the 52 high bits, centred in their cell: (k + 0.5) 2^-52 is in (0, 1) and so is 1 - u, exactly */
+  private static double uniform(long bits) {
+    return ((bits >>> 12) + 0.5) * ULP;
+  }
+
+  private SplittableGenerator streamOf(int stream) {
+    if (stream < 0)
+      throw new IllegalArgumentException("Invalid stream: " + stream);
+    while (streams.size() <= stream)
+      streams.add(root.split());
+    if (draws.length <= stream)
+      draws = Arrays.copyOf(draws, Math.max(stream + 1, 2 * draws.length));
+    return streams.get(stream);
+  }
+
+  public void writeState(DataOutput out) throws IOException {
+    out.writeLong(seed);
+    out.writeInt(streams.size());
+    for (int j = 0; j < streams.size(); j++)
+      out.writeLong(draws[j]);
+  }
+
+  public void readState(DataInput in) throws IOException {
+    plantSeeds(in.readLong());
+    int n = in.readInt();
+    for (int j = 0; j < n; j++) {
+      SplittableGenerator g = streamOf(j);
+      long count = in.readLong();
+      for (long k = 0; k < count; k++)
+        g.nextLong();
+      draws[j] = count;
+    }
+  }
+}
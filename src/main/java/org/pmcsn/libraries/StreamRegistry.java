@@ -0,0 +1,36 @@
+/* -------------------------------------------------------------------------
+ * Book of the Rngs streams in use, so that no two purposes (the services
+ * of a center, its arrivals, the matching of the ride center, ...) ever
+ * draw from the same stream.  Every stream is allocated to an owner, e.g.
+ * "Small Center arrivals": allocating it again to the same owner is a
+ * no-op (the centers of every replication are built from the same
+ * configuration), to another owner is an error.
+ *
+ * Indices are limited to the streams of the generator in use
+ * (Rngs.getStreams()): the 256 Lehmer streams wrap around past it, while
+ * the other backends have as many streams as an int can index.
+ * -------------------------------------------------------------------------
+ */
+package org.pmcsn.libraries;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class StreamRegistry {
+  private final int streams;
+  private final Map<Integer, String> owners = new HashMap<>();
+
+  public StreamRegistry(int streams) {
+    this.streams = streams;
+  }
+
+  /* claims stream 'index' for 'owner' and returns it */
+  public synchronized int allocate(String owner, int index) {
+    if (index < 0 || index >= streams)
+      throw new IllegalArgumentException("Invalid stream for " + owner + ": " + index);
+    String current = owners.putIfAbsent(index, owner);
+    if (current != null && !current.equals(owner))
+      throw new IllegalArgumentException("Stream " + index + " of " + owner + " is already allocated to " + current);
+    return index;
+  }
+}
@@ -1,5 +1,7 @@
 package org.pmcsn.model;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
@@ -29,11 +31,41 @@ public abstract class AbstractStatistics {
     public List<Double> meanQueuePopulationList = new ArrayList<>();
     public List<Double> meanResponseTimeList = new ArrayList<>();
     MeanStatistics meanStatistics = null;
+    // count, mean, M2, min and max of every series, by Index: the means and the intervals come from here
+    private final Accumulator[] accumulators = new Accumulator[Index.values().length];
+    // the lists above hold the whole series only when retainSeries is on: they are needed for the rows
+    // of the results csv and by the analyses of the single values (control variates, paired runs,
+    // batch autocorrelation), otherwise the memory stays constant in the number of runs or batches
+    private boolean retainSeries = true;
 
     private final String centerName;
 
     public AbstractStatistics(String centerName) {
         this.centerName = centerName;
+        for (Index index : Index.values()) {
+            accumulators[index.ordinal()] = new Accumulator();
+        }
+    }
+
+    public boolean isRetainingSeries() {
+        return retainSeries;
+    }
+
+    // to be set before the first value: the series cannot be rebuilt afterwards
+    public void setRetainSeries(boolean retainSeries) {
+        if (getCount() > 0) {
+            throw new IllegalStateException("Series retention changed after " + getCount() + " values");
+        }
+        this.retainSeries = retainSeries;
+    }
+
+    public Accumulator getAccumulator(Index index) {
+        return accumulators[index.ordinal()];
+    }
+
+    // number of runs or batches collected
+    public long getCount() {
+        return getAccumulator(Index.ResponseTime).getCount();
     }
 
     public MeanStatistics getMeanStatistics() {
@@ -54,19 +86,19 @@ public abstract class AbstractStatistics {
     public void saveStats(Area area, MsqSum[] sum, double lastArrivalTime, double lastCompletionTime, boolean isMultiServer, double currentBatchStartTime) {
         long numberOfJobsServed = Arrays.stream(sum).mapToLong(s -> s.served).sum();
         double lambda = numberOfJobsServed / (lastArrivalTime - currentBatchStartTime);
-        add(Index.Lambda, lambdaList, lambda);
+        add(Index.Lambda, lambda);
         // mean system population (E[Ns])
         double meanSystemPopulation = area.getNodeArea() / (lastCompletionTime - currentBatchStartTime);
-        add(Index.SystemPopulation, meanSystemPopulationList, meanSystemPopulation);
+        add(Index.SystemPopulation, meanSystemPopulation);
         // mean response time (E[Ts])
         double meanResponseTime = area.getNodeArea() / numberOfJobsServed;
-        add(Index.ResponseTime, meanResponseTimeList, meanResponseTime);
+        add(Index.ResponseTime, meanResponseTime);
         // mean queue population (E[Nq])
         double meanQueuePopulation = area.getQueueArea() / (lastCompletionTime - currentBatchStartTime);
-        add(Index.QueuePopulation, meanQueuePopulationList, meanQueuePopulation);
+        add(Index.QueuePopulation, meanQueuePopulation);
         // mean wait time (E[Tq])
         double meanQueueTime = area.getQueueArea() / numberOfJobsServed;
-        add(Index.QueueTime, meanQueueTimeList, meanQueueTime);
+        add(Index.QueueTime, meanQueueTime);
         double meanServiceTime;
         double utilization;
         if (isMultiServer) {
@@ -87,13 +119,91 @@ public abstract class AbstractStatistics {
             // mean utilization (ρ)
             utilization = area.getServiceArea() / (lastCompletionTime - currentBatchStartTime);
         }
-        add(Index.Utilization, meanUtilizationList, utilization);
-        add(Index.ServiceTime, meanServiceTimeList, meanServiceTime);
+        add(Index.Utilization, utilization);
+        add(Index.ServiceTime, meanServiceTime);
+    }
+
+    abstract void add(Index index, double value);
+
+    // a value of a series, in its accumulator and, when the series are kept, in its list
+    public void addValue(Index index, double value) {
+        getAccumulator(index).add(value);
+        if (retainSeries) {
+            series(index).add(value);
+        }
+        meanStatistics = null;
     }
 
-    abstract void add(Index index, List<Double> list, double value);
+    List<Double> series(Index index) {
+        return switch (index) {
+            case ServiceTime -> meanServiceTimeList;
+            case QueueTime -> meanQueueTimeList;
+            case Lambda -> lambdaList;
+            case SystemPopulation -> meanSystemPopulationList;
+            case Utilization -> meanUtilizationList;
+            case QueuePopulation -> meanQueuePopulationList;
+            case ResponseTime -> meanResponseTimeList;
+        };
+    }
+
+    // appends the rows collected by another instance, e.g. the one of an independent replication:
+    // value by value when it kept its series, by merging the accumulators otherwise
+    void appendRows(AbstractStatistics other) {
+        for (Index index : Index.values()) {
+            append(getAccumulator(index), series(index), other.getAccumulator(index), other.series(index), other.retainSeries);
+        }
+        meanStatistics = null;
+    }
+
+    void append(Accumulator accumulator, List<Double> list, Accumulator otherAccumulator, List<Double> otherList, boolean otherRetainsSeries) {
+        if (otherRetainsSeries) {
+            for (double value : otherList) {
+                accumulator.add(value);
+            }
+            if (retainSeries) {
+                list.addAll(otherList);
+            }
+        } else if (retainSeries) {
+            throw new IllegalStateException("Appending to the series of " + centerName + " rows that were not kept");
+        } else {
+            accumulator.merge(otherAccumulator);
+        }
+    }
+
+    public void writeState(DataOutput out) throws IOException {
+        out.writeBoolean(retainSeries);
+        for (Index index : Index.values()) {
+            getAccumulator(index).writeState(out);
+            if (retainSeries) {
+                List<Double> list = series(index);
+                out.writeInt(list.size());
+                for (double value : list) {
+                    out.writeDouble(value);
+                }
+            }
+        }
+    }
+
+    public void readState(DataInput in) throws IOException {
+        retainSeries = in.readBoolean();
+        for (Index index : Index.values()) {
+            getAccumulator(index).readState(in);
+            List<Double> list = series(index);
+            list.clear();
+            if (retainSeries) {
+                int size = in.readInt();
+                for (int i = 0; i < size; i++) {
+                    list.add(in.readDouble());
+                }
+            }
+        }
+        meanStatistics = null;
+    }
 
     public void writeStats(String simulationType, long seed) {
+        if (!retainSeries) {
+            throw new IllegalStateException("The rows of " + centerName + " were not kept");
+        }
         File parent = Path.of("csvFiles", simulationType, String.valueOf(seed), "results").toFile();
         if (!parent.exists()) {
             if (!parent.mkdirs()) {
@@ -0,0 +1,139 @@
+package org.pmcsn.model;
+
+import org.pmcsn.libraries.Rvms;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+// Streaming statistics of a series of observations (one per run or batch) in constant space: count,
+// mean and M2 (sum of the squared deviations from the mean) by Welford's one-pass algorithm, min and max.
+// The recurrence is the one of ConfidenceIntervals.computeConfidenceInterval, so the half-width is the
+// one the whole series would give; the mean is reported from a compensated sum, as DoubleStream.average()
+// (and MeanStatistics.computeMean) computes it, so that it matches the mean of the series as well.
+public class Accumulator {
+    private long count = 0;
+    private double mean = 0.0;
+    private double m2 = 0.0;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    // Kahan summation of the values, with the plain sum for the infinite ones
+    private double sum = 0.0;
+    private double compensation = 0.0;
+    private double simpleSum = 0.0;
+
+    public void add(double value) {
+        count++;
+        double diff = value - mean;
+        m2 += diff * diff * (count - 1.0) / count;
+        mean += diff / count;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+
+        double y = value - compensation;
+        double t = sum + y;
+        compensation = (t - sum) - y;
+        sum = t;
+        simpleSum += value;
+    }
+
+    // the statistics of the two series one after the other (Chan et al. for the mean and M2)
+    public void merge(Accumulator other) {
+        if (other.count == 0) {
+            return;
+        }
+        if (count == 0) {
+            copy(other);
+            return;
+        }
+        long n = count + other.count;
+        double diff = other.mean - mean;
+        m2 += other.m2 + diff * diff * count * other.count / n;
+        mean += diff * other.count / n;
+        count = n;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+
+        double y = (other.sum - other.compensation) - compensation;
+        double t = sum + y;
+        compensation = (t - sum) - y;
+        sum = t;
+        simpleSum += other.simpleSum;
+    }
+
+    private void copy(Accumulator other) {
+        count = other.count;
+        mean = other.mean;
+        m2 = other.m2;
+        min = other.min;
+        max = other.max;
+        sum = other.sum;
+        compensation = other.compensation;
+        simpleSum = other.simpleSum;
+    }
+
+    public void reset() {
+        copy(new Accumulator());
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        if (count == 0) {
+            throw new IllegalStateException("No values accumulated");
+        }
+        double total = sum - compensation;
+        if (Double.isNaN(total) && Double.isInfinite(simpleSum)) {
+            total = simpleSum;
+        }
+        return total / count;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    // population standard deviation, as in computeConfidenceInterval
+    public double getStandardDeviation() {
+        return Math.sqrt(m2 / count);
+    }
+
+    // half-width of the t-based interval at the given level of confidence
+    public double getConfidenceInterval(double levelOfConfidence) {
+        if (count <= 1) {
+            System.out.print("ERROR - insufficient data to compute confidence interval\n");
+            return 0.0;
+        }
+        double u = 1.0 - 0.5 * (1.0 - levelOfConfidence); /* interval parameter */
+        double t = new Rvms().idfStudent(count - 1, u); /* critical value of t */
+        return t * getStandardDeviation() / Math.sqrt(count - 1); /* interval half width */
+    }
+
+    public void writeState(DataOutput out) throws IOException {
+        out.writeLong(count);
+        out.writeDouble(mean);
+        out.writeDouble(m2);
+        out.writeDouble(min);
+        out.writeDouble(max);
+        out.writeDouble(sum);
+        out.writeDouble(compensation);
+        out.writeDouble(simpleSum);
+    }
+
+    public void readState(DataInput in) throws IOException {
+        count = in.readLong();
+        mean = in.readDouble();
+        m2 = in.readDouble();
+        min = in.readDouble();
+        max = in.readDouble();
+        sum = in.readDouble();
+        compensation = in.readDouble();
+        simpleSum = in.readDouble();
+    }
+}
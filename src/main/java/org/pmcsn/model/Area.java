@@ -1,5 +1,9 @@
 package org.pmcsn.model;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 public class Area {
     private double nodeArea = 0.0;
     private double queueArea = 0.0;
@@ -32,4 +36,16 @@ public class Area {
         queueArea = 0.0;
         serviceArea = 0.0;
     }
+
+    public void writeState(DataOutput out) throws IOException {
+        out.writeDouble(nodeArea);
+        out.writeDouble(queueArea);
+        out.writeDouble(serviceArea);
+    }
+
+    public void readState(DataInput in) throws IOException {
+        nodeArea = in.readDouble();
+        queueArea = in.readDouble();
+        serviceArea = in.readDouble();
+    }
 }
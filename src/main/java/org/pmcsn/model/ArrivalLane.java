@@ -0,0 +1,63 @@
+package org.pmcsn.model;
+
+// FIFO of the exogenous arrivals scheduled for one center. Arrival times are generated in
+// increasing order, so the lane is already sorted and its head is its most imminent arrival.
+class ArrivalLane {
+    private final EventType type;
+    private double[] times = new double[8];
+    private int[] postiRichiesti = new int[8];
+    private int head = 0;
+    private int size = 0;
+
+    ArrivalLane(EventType type) {
+        this.type = type;
+    }
+
+    EventType type() {
+        return type;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // +inf if the lane is empty
+    double peekTime() {
+        return size == 0 ? Double.POSITIVE_INFINITY : times[head];
+    }
+
+    int peekPostiRichiesti() {
+        return postiRichiesti[head];
+    }
+
+    void add(double time, int posti) {
+        if (size > 0 && time < times[(head + size - 1) & (times.length - 1)]) {
+            throw new IllegalArgumentException("Arrival at " + time + " scheduled before the last one of " + type);
+        }
+        if (size == times.length) {
+            grow();
+        }
+        int tail = (head + size) & (times.length - 1);
+        times[tail] = time;
+        postiRichiesti[tail] = posti;
+        size++;
+    }
+
+    void remove() {
+        head = (head + 1) & (times.length - 1);
+        size--;
+    }
+
+    private void grow() {
+        double[] newTimes = new double[times.length * 2];
+        int[] newPosti = new int[times.length * 2];
+        for (int i = 0; i < size; i++) {
+            int from = (head + i) & (times.length - 1);
+            newTimes[i] = times[from];
+            newPosti[i] = postiRichiesti[from];
+        }
+        times = newTimes;
+        postiRichiesti = newPosti;
+        head = 0;
+    }
+}
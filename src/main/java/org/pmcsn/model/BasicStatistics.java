@@ -8,6 +8,9 @@ public class BasicStatistics extends AbstractStatistics {
     List<Double> probAccept;
     List<Double> jobServed;
     private final List<Double> busyTimeList = new ArrayList<>();
+    // kept like the series of AbstractStatistics: the lists only when the series are retained
+    private final Accumulator jobServedAccumulator = new Accumulator();
+    private final Accumulator busyTime = new Accumulator();
 
     public BasicStatistics(String centerName) {
         super(centerName);
@@ -16,27 +19,94 @@ public class BasicStatistics extends AbstractStatistics {
     }
 
     @Override
-    void add(Index index, List<Double> list, double value) {
-        list.add(value);
+    void add(Index index, double value) {
+        addValue(index, value);
     }
 
     public List<Double> getProbAccept() {
         return probAccept;
     }
 
-    public List<Double> getJobServed() {
-        return jobServed;
-    }
-
     public void addJobServed(double value) {
-        jobServed.add(value);
+        jobServedAccumulator.add(value);
+        if (isRetainingSeries()) {
+            jobServed.add(value);
+        }
     }
 
     public void addBusyTime(double value) {
-        busyTimeList.add(value);
+        busyTime.add(value);
+        if (isRetainingSeries()) {
+            busyTimeList.add(value);
+        }
+    }
+
+    // appends the rows collected by another instance, e.g. the one of an independent replication
+    public void append(BasicStatistics other) {
+        appendRows(other);
+        probAccept.addAll(other.probAccept);
+        append(jobServedAccumulator, jobServed, other.jobServedAccumulator, other.jobServed, other.isRetainingSeries());
+        append(busyTime, busyTimeList, other.busyTime, other.busyTimeList, other.isRetainingSeries());
+    }
+
+    // appends the row-by-row mean of two instances with the same runs, e.g. the two runs of
+    // antithetic pairs: each pair is one observation; both must have kept their series
+    public void appendMean(BasicStatistics first, BasicStatistics second) {
+        for (Index index : Index.values()) {
+            List<Double> a = first.series(index);
+            List<Double> b = second.series(index);
+            for (int i = 0; i < a.size(); i++) {
+                addValue(index, (a.get(i) + b.get(i)) / 2);
+            }
+        }
+        for (int i = 0; i < first.jobServed.size(); i++) {
+            addJobServed((first.jobServed.get(i) + second.jobServed.get(i)) / 2);
+        }
+        for (int i = 0; i < first.busyTimeList.size(); i++) {
+            addBusyTime((first.busyTimeList.get(i) + second.busyTimeList.get(i)) / 2);
+        }
+        meanStatistics = null;
+    }
+
+    // a run as comma-separated values, in the order of the results csv followed by the jobs served
+    // and the busy time, e.g. to ship it between processes; Double.toString round-trips exactly
+    public String getRunRow(int run) {
+        if (!isRetainingSeries()) {
+            throw new IllegalStateException("The rows of " + getCenterName() + " were not kept");
+        }
+        return String.join(",",
+                String.valueOf(meanResponseTimeList.get(run)),
+                String.valueOf(meanQueueTimeList.get(run)),
+                String.valueOf(meanServiceTimeList.get(run)),
+                String.valueOf(meanSystemPopulationList.get(run)),
+                String.valueOf(meanQueuePopulationList.get(run)),
+                String.valueOf(meanUtilizationList.get(run)),
+                String.valueOf(lambdaList.get(run)),
+                String.valueOf(jobServed.get(run)),
+                String.valueOf(busyTimeList.get(run)));
+    }
+
+    public void addRunRow(String row) {
+        String[] values = row.split(",");
+        if (values.length != 9) {
+            throw new IllegalArgumentException("Invalid run row: " + row);
+        }
+        addValue(Index.ResponseTime, Double.parseDouble(values[0]));
+        addValue(Index.QueueTime, Double.parseDouble(values[1]));
+        addValue(Index.ServiceTime, Double.parseDouble(values[2]));
+        addValue(Index.SystemPopulation, Double.parseDouble(values[3]));
+        addValue(Index.QueuePopulation, Double.parseDouble(values[4]));
+        addValue(Index.Utilization, Double.parseDouble(values[5]));
+        addValue(Index.Lambda, Double.parseDouble(values[6]));
+        addJobServed(Double.parseDouble(values[7]));
+        addBusyTime(Double.parseDouble(values[8]));
+    }
+
+    public double getMeanJobServed() {
+        return jobServedAccumulator.getMean();
     }
 
     public double getMeanBusyTime() {
-        return busyTimeList.stream().mapToDouble(Double::doubleValue).average().orElseThrow();
+        return busyTime.getMean();
     }
 }
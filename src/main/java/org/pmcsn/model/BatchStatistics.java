@@ -1,6 +1,8 @@
 package org.pmcsn.model;
 
-import java.util.List;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 public class BatchStatistics extends AbstractStatistics {
     private int batchRetrievalDone = 0;
@@ -12,13 +14,30 @@ public class BatchStatistics extends AbstractStatistics {
     }
 
     @Override
-    void add(Index index, List<Double> list, double value) {
-        list.add(value);
-        if(list.size() >= numBatches) {
+    void add(Index index, double value) {
+        addValue(index, value);
+        if(getAccumulator(index).getCount() >= numBatches) {
             batchRetrievalDone++;
         }
     }
 
+    // appends the batches collected by another trajectory
+    public void append(BatchStatistics other) {
+        appendRows(other);
+    }
+
+    @Override
+    public void writeState(DataOutput out) throws IOException {
+        super.writeState(out);
+        out.writeInt(batchRetrievalDone);
+    }
+
+    @Override
+    public void readState(DataInput in) throws IOException {
+        super.readState(in);
+        batchRetrievalDone = in.readInt();
+    }
+
     public boolean isBatchRetrievalDone() {
         /*modificato*/
         return batchRetrievalDone == 7;
@@ -0,0 +1,278 @@
+package org.pmcsn.model;
+
+import java.util.Arrays;
+
+// Calendar queue (R. Brown, "Calendar Queues: A Fast O(1) Priority Queue Implementation
+// for the Simulation Event Set Problem", CACM 1988).
+// Events are hashed by time into a circular array of "day" buckets, each one a sorted
+// singly linked list; dequeue scans forward from the day of the last dequeued event.
+// The number of buckets doubles/halves with the population and the day width is
+// re-estimated from the gaps between the most imminent events at every resize.
+public class CalendarEventList implements EventList {
+    private static final int MIN_BUCKETS = 2;
+    private static final int WIDTH_SAMPLE = 25;
+    private static final int NIL = -1;
+
+    private int[] buckets;
+    private int mask;
+    private double width;
+    private int size = 0;
+
+    // virtual day of the last dequeued event: every pending event lies on it or later
+    private long lastDay = 0;
+
+    // bucket found by the last findMinBucket(), NIL once a link or unlink may have moved the minimum:
+    // peekTime() and the poll() that follows it share one scan
+    private int minBucket = NIL;
+
+    // per-node links and keys, indexed by slot
+    private double[] nodeTime;
+    private int[] next;
+    private final EventSlots payloads;
+    private final MsqEventPool pool;
+
+    public CalendarEventList() {
+        this(MIN_BUCKETS, 1.0, new MsqEventPool());
+    }
+
+    public CalendarEventList(int initialBuckets, double initialWidth, MsqEventPool pool) {
+        this.pool = pool;
+        int n = Integer.highestOneBit(Math.max(initialBuckets, MIN_BUCKETS));
+        this.buckets = new int[n];
+        Arrays.fill(buckets, NIL);
+        this.mask = n - 1;
+        this.width = initialWidth;
+        this.nodeTime = new double[64];
+        this.next = new int[64];
+        this.payloads = new EventSlots(64, pool);
+    }
+
+    @Override
+    public int add(MsqEvent event) {
+        double time = event.time;
+        int node = payloads.store(event);
+        if (node >= nodeTime.length) {
+            nodeTime = Arrays.copyOf(nodeTime, payloads.capacity());
+            next = Arrays.copyOf(next, payloads.capacity());
+        }
+        nodeTime[node] = time;
+        long day = dayOf(time);
+        if (size == 0 || day < lastDay) {
+            lastDay = day;
+        }
+        link(node);
+        size++;
+        if (size > 2 * buckets.length) {
+            resize(buckets.length * 2);
+        }
+        return node;
+    }
+
+    @Override
+    public MsqEvent poll() {
+        int node = unlinkMin();
+        if (node == NIL) {
+            return null;
+        }
+        MsqEvent event = payloads.load(node, nodeTime[node]);
+        payloads.release(node);
+        shrinkIfSparse();
+        return event;
+    }
+
+    @Override
+    public double peekTime() {
+        int bucket = findMinBucket();
+        return bucket == NIL ? Double.POSITIVE_INFINITY : nodeTime[buckets[bucket]];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public MsqEventPool pool() {
+        return pool;
+    }
+
+    @Override
+    public void cancel(int handle) {
+        unlink(handle);
+        size--;
+        payloads.release(handle);
+        shrinkIfSparse();
+    }
+
+    @Override
+    public void reschedule(int handle, double time, double service) {
+        unlink(handle);
+        nodeTime[handle] = time;
+        payloads.setService(handle, service);
+        long day = dayOf(time);
+        if (day < lastDay) {
+            lastDay = day;
+        }
+        link(handle);
+    }
+
+    private void shrinkIfSparse() {
+        if (size < buckets.length / 2 && buckets.length > MIN_BUCKETS) {
+            resize(buckets.length / 2);
+        }
+    }
+
+    private long dayOf(double time) {
+        return (long) Math.floor(time / width);
+    }
+
+    // inserts the node in its bucket keeping the list sorted (FIFO among equal times)
+    private void link(int node) {
+        minBucket = NIL;
+        int b = (int) (dayOf(nodeTime[node]) & mask);
+        double time = nodeTime[node];
+        int prev = NIL;
+        int cur = buckets[b];
+        while (cur != NIL && nodeTime[cur] <= time) {
+            prev = cur;
+            cur = next[cur];
+        }
+        next[node] = cur;
+        if (prev == NIL) {
+            buckets[b] = node;
+        } else {
+            next[prev] = node;
+        }
+    }
+
+    // removes the node from its bucket; the walk is O(1) on average since buckets hold ~2 events
+    private void unlink(int node) {
+        minBucket = NIL;
+        int b = (int) (dayOf(nodeTime[node]) & mask);
+        int prev = NIL;
+        int cur = buckets[b];
+        while (cur != node) {
+            prev = cur;
+            cur = next[cur];
+        }
+        if (prev == NIL) {
+            buckets[b] = next[node];
+        } else {
+            next[prev] = next[node];
+        }
+    }
+
+    private int unlinkMin() {
+        int bucket = findMinBucket();
+        if (bucket == NIL) {
+            return NIL;
+        }
+        int node = buckets[bucket];
+        buckets[bucket] = next[node];
+        minBucket = NIL;
+        lastDay = dayOf(nodeTime[node]);
+        size--;
+        return node;
+    }
+
+    // index of the bucket whose head is the most imminent event
+    private int findMinBucket() {
+        if (size == 0) {
+            return NIL;
+        }
+        if (minBucket != NIL) {
+            return minBucket;
+        }
+        // one year of days starting from the current one
+        for (int k = 0; k < buckets.length; k++) {
+            long day = lastDay + k;
+            int b = (int) (day & mask);
+            int head = buckets[b];
+            if (head != NIL && dayOf(nodeTime[head]) == day) {
+                minBucket = b;
+                return b;
+            }
+        }
+        // nothing within a year: direct search among the bucket heads
+        int best = NIL;
+        for (int b = 0; b < buckets.length; b++) {
+            int head = buckets[b];
+            if (head != NIL && (best == NIL || nodeTime[head] < nodeTime[buckets[best]])) {
+                best = b;
+            }
+        }
+        lastDay = dayOf(nodeTime[buckets[best]]);
+        minBucket = best;
+        return best;
+    }
+
+    private void resize(int newSize) {
+        double newWidth = estimateWidth();
+        int[] old = buckets;
+        buckets = new int[newSize];
+        Arrays.fill(buckets, NIL);
+        mask = newSize - 1;
+        if (newWidth > 0) {
+            width = newWidth;
+        }
+        double minTime = Double.POSITIVE_INFINITY;
+        for (int head : old) {
+            int node = head;
+            while (node != NIL) {
+                int following = next[node];
+                link(node);
+                minTime = Math.min(minTime, nodeTime[node]);
+                node = following;
+            }
+        }
+        if (size > 0) {
+            lastDay = dayOf(minTime);
+        }
+    }
+
+    // three times the average gap between the most imminent events, ignoring gaps
+    // larger than twice the average (Brown's heuristic)
+    private double estimateWidth() {
+        int n = Math.min(size, WIDTH_SAMPLE);
+        if (n < 2) {
+            return width;
+        }
+        double[] sample = new double[n];
+        int filled = 0;
+        for (int head : buckets) {
+            for (int node = head; node != NIL; node = next[node]) {
+                double t = nodeTime[node];
+                if (filled < n) {
+                    sample[filled++] = t;
+                    insertionSort(sample, filled);
+                } else if (t < sample[n - 1]) {
+                    sample[n - 1] = t;
+                    insertionSort(sample, n);
+                }
+            }
+        }
+        double total = sample[n - 1] - sample[0];
+        double average = total / (n - 1);
+        double sum = 0;
+        int count = 0;
+        for (int i = 1; i < n; i++) {
+            double gap = sample[i] - sample[i - 1];
+            if (gap <= 2 * average) {
+                sum += gap;
+                count++;
+            }
+        }
+        return count == 0 || sum == 0 ? width : 3 * sum / count;
+    }
+
+    // moves the last element of the first n into place
+    private static void insertionSort(double[] values, int n) {
+        double v = values[n - 1];
+        int i = n - 1;
+        while (i > 0 && values[i - 1] > v) {
+            values[i] = values[i - 1];
+            i--;
+        }
+        values[i] = v;
+    }
+}
@@ -5,6 +5,8 @@ import org.pmcsn.libraries.Rvms;
 
 import java.util.List;
 
+import static org.pmcsn.model.AbstractStatistics.Index.*;
+
 public class ConfidenceIntervals {
     public double responseTimeCI;
     public double queueTimeCI;
@@ -14,16 +16,29 @@ public class ConfidenceIntervals {
     public double utilizationCI;
     public double lambdaCI;
 
+    // from the accumulators of the series, in O(1): the intervals computeConfidenceInterval gives on the lists
+    public ConfidenceIntervals(AbstractStatistics stats) {
+        double levelOfConfidence = new ConfigurationManager().getDouble("general", "levelOfConfidence");
+        this.responseTimeCI = stats.getAccumulator(ResponseTime).getConfidenceInterval(levelOfConfidence);
+        this.queueTimeCI = stats.getAccumulator(QueueTime).getConfidenceInterval(levelOfConfidence);
+        this.serviceTimeCI = stats.getAccumulator(ServiceTime).getConfidenceInterval(levelOfConfidence);
+        this.systemPopulationCI = stats.getAccumulator(SystemPopulation).getConfidenceInterval(levelOfConfidence);
+        this.queuePopulationCI = stats.getAccumulator(QueuePopulation).getConfidenceInterval(levelOfConfidence);
+        this.utilizationCI = stats.getAccumulator(Utilization).getConfidenceInterval(levelOfConfidence);
+        this.lambdaCI = stats.getAccumulator(Lambda).getConfidenceInterval(levelOfConfidence);
+    }
+
+    // pooled intervals over independent groups of groupSize consecutive values (see computePooledConfidenceInterval)
     public ConfidenceIntervals(List<Double> meanResponseTimeList, List<Double> meanQueueTimeList, List<Double> meanServiceTimeList,
                                List<Double> meanSystemPopulationList, List<Double> meanQueuePopulationList,
-                               List<Double> meanUtilizationList, List<Double> lambdaList) {
-        this.responseTimeCI = computeConfidenceInterval(meanResponseTimeList);
-        this.queueTimeCI = computeConfidenceInterval(meanQueueTimeList);
-        this.serviceTimeCI = computeConfidenceInterval(meanServiceTimeList);
-        this.systemPopulationCI = computeConfidenceInterval(meanSystemPopulationList);
-        this.queuePopulationCI = computeConfidenceInterval(meanQueuePopulationList);
-        this.utilizationCI = computeConfidenceInterval(meanUtilizationList);
-        this.lambdaCI = computeConfidenceInterval(lambdaList);
+                               List<Double> meanUtilizationList, List<Double> lambdaList, int groupSize) {
+        this.responseTimeCI = computePooledConfidenceInterval(meanResponseTimeList, groupSize);
+        this.queueTimeCI = computePooledConfidenceInterval(meanQueueTimeList, groupSize);
+        this.serviceTimeCI = computePooledConfidenceInterval(meanServiceTimeList, groupSize);
+        this.systemPopulationCI = computePooledConfidenceInterval(meanSystemPopulationList, groupSize);
+        this.queuePopulationCI = computePooledConfidenceInterval(meanQueuePopulationList, groupSize);
+        this.utilizationCI = computePooledConfidenceInterval(meanUtilizationList, groupSize);
+        this.lambdaCI = computePooledConfidenceInterval(lambdaList, groupSize);
     }
 
     public double getResponseTimeCI() {
@@ -85,4 +100,49 @@ public class ConfidenceIntervals {
         }
         return w;
     }
-}
\ No newline at end of file
+
+    // Replicated batch means: the values come in R independent groups (trajectories) of
+    // groupSize batch means each. The variance is pooled from the deviations of every value from
+    // the mean of its own group, so it has n - R degrees of freedom; with a single group this is
+    // the interval computed above.
+    public static double computePooledConfidenceInterval(List<Double> values, int groupSize) {
+        long n = 0; /* counts data points */
+        long groups = 0;
+        double sum = 0.0;
+        double mean = 0.0;
+        double stdev;
+        double u, t, w = 0.0;
+        double diff;
+
+        Rvms rvms = new Rvms();
+
+        long k = 0; /* data points in the current group */
+        for (Double data : values) {
+            if (k == groupSize) {
+                k = 0;
+                mean = 0.0;
+            }
+            if (k == 0) {
+                groups++;
+            }
+            n++;
+            k++;
+            diff = data - mean;
+            sum += diff * diff * (k - 1.0) / k;
+            mean += diff / k;
+        }
+
+        stdev = Math.sqrt(sum / n);
+
+        ConfigurationManager configurationManager = new ConfigurationManager();
+        double levelOfConfidence = configurationManager.getDouble("general", "levelOfConfidence");
+        if (n > groups) {
+            u = 1.0 - 0.5 * (1.0 - levelOfConfidence); /* interval parameter */
+            t = rvms.idfStudent(n - groups, u); /* critical value of t */
+            w = t * stdev / Math.sqrt(n - groups); /* interval half width */
+        } else {
+            System.out.print("ERROR - insufficient data to compute confidence interval\n");
+        }
+        return w;
+    }
+}
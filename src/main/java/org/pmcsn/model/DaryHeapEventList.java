@@ -0,0 +1,149 @@
+package org.pmcsn.model;
+
+import java.util.Arrays;
+
+// Indexed 4-ary min-heap on primitive arrays: the heap itself only moves (time, slot) pairs,
+// while the payload of every event lives in parallel arrays indexed by its slot.
+// The slot is also the handle of the event, and position[slot] tracks where it sits in the
+// heap so that cancel/reschedule cost O(log n).
+public class DaryHeapEventList implements EventList {
+    private static final int D = 4;
+
+    // heap-ordered keys and slot references
+    private double[] times;
+    private int[] slots;
+    private int size = 0;
+
+    // heap index of every live slot
+    private int[] position;
+    private final EventSlots payloads;
+
+    private final MsqEventPool pool;
+
+    public DaryHeapEventList() {
+        this(64, new MsqEventPool());
+    }
+
+    public DaryHeapEventList(int initialCapacity, MsqEventPool pool) {
+        this.pool = pool;
+        int capacity = Math.max(initialCapacity, D);
+        times = new double[capacity];
+        slots = new int[capacity];
+        position = new int[capacity];
+        payloads = new EventSlots(capacity, pool);
+    }
+
+    @Override
+    public int add(MsqEvent event) {
+        if (size == times.length) {
+            times = Arrays.copyOf(times, size * 2);
+            slots = Arrays.copyOf(slots, size * 2);
+        }
+        double time = event.time;
+        int slot = payloads.store(event);
+        if (slot >= position.length) {
+            position = Arrays.copyOf(position, payloads.capacity());
+        }
+        siftUp(size++, time, slot);
+        return slot;
+    }
+
+    @Override
+    public MsqEvent poll() {
+        if (size == 0) {
+            return null;
+        }
+        int slot = slots[0];
+        MsqEvent event = payloads.load(slot, times[0]);
+        removeAt(0);
+        return event;
+    }
+
+    @Override
+    public double peekTime() {
+        return size == 0 ? Double.POSITIVE_INFINITY : times[0];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public MsqEventPool pool() {
+        return pool;
+    }
+
+    @Override
+    public void cancel(int handle) {
+        removeAt(position[handle]);
+    }
+
+    @Override
+    public void reschedule(int handle, double time, double service) {
+        payloads.setService(handle, service);
+        int pos = position[handle];
+        if (time < times[pos]) {
+            siftUp(pos, time, handle);
+        } else {
+            siftDown(pos, time, handle);
+        }
+    }
+
+    private void removeAt(int pos) {
+        payloads.release(slots[pos]);
+        size--;
+        if (pos == size) {
+            return;
+        }
+        double time = times[size];
+        int slot = slots[size];
+        if (pos > 0 && time < times[(pos - 1) / D]) {
+            siftUp(pos, time, slot);
+        } else {
+            siftDown(pos, time, slot);
+        }
+    }
+
+    private void siftUp(int pos, double time, int slot) {
+        while (pos > 0) {
+            int parent = (pos - 1) / D;
+            if (times[parent] <= time) {
+                break;
+            }
+            place(pos, times[parent], slots[parent]);
+            pos = parent;
+        }
+        place(pos, time, slot);
+    }
+
+    private void siftDown(int pos, double time, int slot) {
+        while (true) {
+            int first = D * pos + 1;
+            if (first >= size) {
+                break;
+            }
+            int last = Math.min(first + D, size);
+            int min = first;
+            double minTime = times[first];
+            for (int c = first + 1; c < last; c++) {
+                if (times[c] < minTime) {
+                    min = c;
+                    minTime = times[c];
+                }
+            }
+            if (minTime >= time) {
+                break;
+            }
+            place(pos, minTime, slots[min]);
+            pos = min;
+        }
+        place(pos, time, slot);
+    }
+
+    private void place(int pos, double time, int slot) {
+        times[pos] = time;
+        slots[pos] = slot;
+        position[slot] = pos;
+    }
+}
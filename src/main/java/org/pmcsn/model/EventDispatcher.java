@@ -0,0 +1,22 @@
+package org.pmcsn.model;
+
+import org.pmcsn.centers.MultiServer;
+
+// Table of the centers indexed by EventType.node: routing an event is a single array load followed
+// by a call of the final MultiServer.onEvent with the kind of the event, a monomorphic call site.
+public class EventDispatcher {
+    private final MultiServer[] centers = new MultiServer[EventType.NODES];
+
+    public void register(int node, MultiServer center) {
+        centers[node] = center;
+    }
+
+    public void dispatch(MsqEvent event, MsqTime time, EventQueue queue) {
+        EventType type = event.type;
+        MultiServer center = centers[type.node];
+        if (center == null) {
+            throw new IllegalArgumentException("No handler registered for event type: " + type);
+        }
+        center.onEvent(type.kind, event, time, queue);
+    }
+}
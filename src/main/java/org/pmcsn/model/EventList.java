@@ -0,0 +1,28 @@
+package org.pmcsn.model;
+
+// Storage strategy behind EventQueue: keeps the pending events ordered by time
+public interface EventList {
+    int NO_HANDLE = -1;
+
+    // schedules the event and returns a handle that stays valid until the event is polled or cancelled.
+    // The list takes ownership of the event instance.
+    int add(MsqEvent event);
+
+    // removes and returns the most imminent event, null if the list is empty.
+    // The caller owns the returned instance and gives it back through pool().release() once consumed.
+    MsqEvent poll();
+
+    // time of the most imminent event, +inf if the list is empty
+    double peekTime();
+
+    int size();
+
+    // removes a pending event
+    void cancel(int handle);
+
+    // moves a pending event to a new time, updating its service
+    void reschedule(int handle, double time, double service);
+
+    // pool the event instances handed out by poll() come from
+    MsqEventPool pool();
+}
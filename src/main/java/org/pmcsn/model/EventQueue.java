@@ -1,77 +1,135 @@
 package org.pmcsn.model;
 
-import java.util.AbstractCollection;
-import java.util.Comparator;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.PriorityQueue;
 
 public class EventQueue {
-    private static final Comparator<MsqEvent> CMP = Comparator.comparingDouble(o -> o.time);
+    private final EventList events;
+    private final MsqEventPool pool;
+    // exogenous arrivals are kept out of the event list, one sorted lane per center
+    private final ArrivalLane[] lanes = new ArrivalLane[EventType.NODES];
+    private int pendingArrivals = 0;
 
-    private final List<PriorityQueue<MsqEvent>> priority = List.of(new PriorityQueue<>(CMP), new PriorityQueue<>(CMP));
-    protected final PriorityQueue<MsqEvent> noPriority = new PriorityQueue<>(CMP);
+    public EventQueue() {
+        this(new PriorityQueueEventList());
+    }
+
+    public EventQueue(EventList events) {
+        this.events = events;
+        this.pool = events.pool();
+    }
+
+    public MsqEvent acquire(EventType type, double time, double service, int serverId) {
+        return pool.acquire(type, time, service, serverId);
+    }
+
+    public MsqEvent acquire(EventType type, double time) {
+        return pool.acquire(type, time);
+    }
 
-    public void add(MsqEvent event) {
-        noPriority.add(event);
+    // gives back an event returned by pop() once it has been processed
+    public void release(MsqEvent event) {
+        pool.release(event);
     }
 
+    // returns a handle that can be used to cancel or reschedule the event while it is pending.
+    // The queue takes ownership of the event: it must not be touched after this call.
+    public int add(MsqEvent event) {
+        return events.add(event);
+    }
+
+    // schedules the next exogenous arrival of a center; the arrivals of a center must come in time order
+    public void addArrival(EventType type, double time) {
+        addArrival(type, time, 0);
+    }
+
+    public void addArrival(EventType type, double time, int postiRichiesti) {
+        if (type.kind != EventType.ARRIVAL) {
+            throw new IllegalArgumentException("Not an arrival: " + type);
+        }
+        ArrivalLane lane = lanes[type.node];
+        if (lane == null) {
+            lane = new ArrivalLane(type);
+            lanes[type.node] = lane;
+        }
+        lane.add(time, postiRichiesti);
+        pendingArrivals++;
+    }
+
+    // NB: true while there are still pending events (the runners' loop conditions rely on it)
     public boolean isEmpty() {
-        return !noPriority.isEmpty() || !priority.stream().allMatch(AbstractCollection::isEmpty);
+        return size() != 0;
     }
 
     public int size() {
-        return noPriority.size() + priority.stream().mapToInt(AbstractCollection::size).sum();
+        return events.size() + pendingArrivals;
     }
 
-    // returns the event with the smallest time among ALL queues and removes it
+    // returns the event with the smallest time and removes it
     public MsqEvent pop() throws Exception {
-        MsqEvent e1 = noPriority.peek();
-        MsqEvent e2 = peek(priority);
-        if (e1 == null && e2 == null) {
-            throw new Exception("No events in queue");
+        ArrivalLane lane = nextLane();
+        if (lane != null && lane.peekTime() < events.peekTime()) {
+            MsqEvent event = pool.acquire(lane.type(), lane.peekTime());
+            event.postiRichiesti = lane.peekPostiRichiesti();
+            lane.remove();
+            pendingArrivals--;
+            return event;
         }
-        if (e1 == null) {
-            return poll(priority);
-        } else if (e2 == null) {
-            return noPriority.poll();
-        } else if (e1.time <= e2.time) {
-            return noPriority.poll();
-        } else {
-            return poll(priority);
+        MsqEvent event = events.poll();
+        if (event == null) {
+            throw new Exception("No events in queue");
         }
+        return event;
     }
 
-    // returns the event with the smallest time without removing it
-    private MsqEvent peek(List<PriorityQueue<MsqEvent>> priorityQueues) {
-        for (PriorityQueue<MsqEvent> queue : priorityQueues) {
-            if (!queue.isEmpty()) {
-                return queue.peek();
+    // returns the time of the most imminent event without removing it
+    public double peekTime() {
+        ArrivalLane lane = nextLane();
+        double eventTime = events.peekTime();
+        return lane == null ? eventTime : Math.min(lane.peekTime(), eventTime);
+    }
+
+    // lane holding the most imminent arrival, null if no arrival is pending
+    private ArrivalLane nextLane() {
+        if (pendingArrivals == 0) {
+            return null;
+        }
+        ArrivalLane best = null;
+        for (ArrivalLane lane : lanes) {
+            if (lane != null && lane.size() > 0 && (best == null || lane.peekTime() < best.peekTime())) {
+                best = lane;
             }
         }
-        return null;
+        return best;
     }
 
-    // returns the event with the smallest time among all the priority queues and removes it
-    private MsqEvent poll(List<PriorityQueue<MsqEvent>> priorityQueues) {
-        for (PriorityQueue<MsqEvent> queue : priorityQueues) {
-            if (!queue.isEmpty()) {
-                return queue.poll();
-            }
+    // removes every pending event and returns them in the order pop() would have, e.g. to write
+    // them to a checkpoint. The caller owns the events and gives each one back through restore()
+    public List<MsqEvent> drain() throws Exception {
+        List<MsqEvent> drained = new ArrayList<>(size());
+        while (size() != 0) {
+            drained.add(pop());
         }
-        return null;
-    }
-
-    public void removeCompletionsFor(int serverId) {
-        noPriority.removeIf(ev ->
-                ev.serverId == serverId
-                        && ev.type == EventType.COMPLETION_RIDE_CENTER
-        );
-        // se usi anche le code priority:
-        for (PriorityQueue<MsqEvent> pq : priority) {
-            pq.removeIf(ev ->
-                    ev.serverId == serverId
-                            && ev.type == EventType.COMPLETION_RIDE_CENTER
-            );
+        return drained;
+    }
+
+    // schedules again an event returned by drain() or read from a checkpoint: the exogenous
+    // arrivals go back to their lane, everything else to the event list.
+    // Returns the new handle of the event, NO_HANDLE for the exogenous arrivals
+    public int restore(MsqEvent event) {
+        if (event.type.kind == EventType.ARRIVAL && !event.isFeedback) {
+            addArrival(event.type, event.time, event.postiRichiesti);
+            pool.release(event);
+            return EventList.NO_HANDLE;
         }
+        return events.add(event);
+    }
+
+    public void cancel(int handle) {
+        events.cancel(handle);
+    }
+
+    public void reschedule(int handle, double time, double service) {
+        events.reschedule(handle, time, service);
     }
 }
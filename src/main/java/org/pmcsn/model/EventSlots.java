@@ -0,0 +1,84 @@
+package org.pmcsn.model;
+
+import java.util.Arrays;
+
+// Event payloads stored column-wise in primitive arrays, addressed by a recyclable slot id.
+// Shared by the array-based event lists so that they only have to order (time, slot) pairs.
+class EventSlots {
+    private static final EventType[] TYPES = EventType.values();
+
+    private byte[] type;
+    private double[] service;
+    private int[] serverId;
+    private int[] nodeId;
+    private int[] postiRichiesti;
+    private boolean[] isFeedback;
+
+    private int[] freeSlots;
+    private int freeCount = 0;
+    private int nextSlot = 0;
+
+    private final MsqEventPool pool;
+
+    EventSlots(int initialCapacity, MsqEventPool pool) {
+        this.pool = pool;
+        type = new byte[initialCapacity];
+        service = new double[initialCapacity];
+        serverId = new int[initialCapacity];
+        nodeId = new int[initialCapacity];
+        postiRichiesti = new int[initialCapacity];
+        isFeedback = new boolean[initialCapacity];
+        freeSlots = new int[initialCapacity];
+    }
+
+    int capacity() {
+        return type.length;
+    }
+
+    // copies the payload of the event into a free slot, recycles the instance and returns the slot id
+    int store(MsqEvent event) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (nextSlot == type.length) {
+                grow();
+            }
+            slot = nextSlot++;
+        }
+        type[slot] = (byte) event.type.ordinal();
+        service[slot] = event.service;
+        serverId[slot] = event.serverId;
+        nodeId[slot] = event.nodeId;
+        postiRichiesti[slot] = event.postiRichiesti;
+        isFeedback[slot] = event.isFeedback;
+        pool.release(event);
+        return slot;
+    }
+
+    MsqEvent load(int slot, double time) {
+        MsqEvent event = pool.acquire(TYPES[type[slot]], time, service[slot], serverId[slot], nodeId[slot]);
+        event.postiRichiesti = postiRichiesti[slot];
+        event.isFeedback = isFeedback[slot];
+        return event;
+    }
+
+    void release(int slot) {
+        freeSlots[freeCount++] = slot;
+    }
+
+    void setService(int slot, double service) {
+        this.service[slot] = service;
+    }
+
+    private void grow() {
+        int capacity = type.length * 2;
+        type = Arrays.copyOf(type, capacity);
+        service = Arrays.copyOf(service, capacity);
+        serverId = Arrays.copyOf(serverId, capacity);
+        nodeId = Arrays.copyOf(nodeId, capacity);
+        postiRichiesti = Arrays.copyOf(postiRichiesti, capacity);
+        isFeedback = Arrays.copyOf(isFeedback, capacity);
+        freeSlots = Arrays.copyOf(freeSlots, capacity);
+    }
+}
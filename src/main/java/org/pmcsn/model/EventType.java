@@ -1,13 +1,45 @@
 package org.pmcsn.model;
 
 public enum EventType {
-    ARRIVAL_SMALL_CENTER,
-    COMPLETION_SMALL_CENTER,
-    ARRIVAL_MEDIUM_CENTER,
-    COMPLETION_MEDIUM_CENTER,
-    ARRIVAL_LARGE_CENTER,
-    COMPLETION_LARGE_CENTER,
-    ARRIVAL_RIDE_CENTER,
-    COMPLETION_RIDE_CENTER,
-    SAVE_STAT
+    ARRIVAL_SMALL_CENTER(0, EventType.ARRIVAL),
+    COMPLETION_SMALL_CENTER(0, EventType.COMPLETION),
+    ARRIVAL_MEDIUM_CENTER(1, EventType.ARRIVAL),
+    COMPLETION_MEDIUM_CENTER(1, EventType.COMPLETION),
+    ARRIVAL_LARGE_CENTER(2, EventType.ARRIVAL),
+    COMPLETION_LARGE_CENTER(2, EventType.COMPLETION),
+    ARRIVAL_RIDE_CENTER(3, EventType.ARRIVAL),
+    COMPLETION_RIDE_CENTER(3, EventType.COMPLETION);
+
+    // number of distinct centers the events belong to
+    public static final int NODES = 4;
+
+    // kinds of event every center handles
+    public static final int ARRIVAL = 0;
+    public static final int COMPLETION = 1;
+    public static final int KINDS = 2;
+
+    private static final EventType[] BY_SLOT = new EventType[NODES * KINDS];
+
+    static {
+        for (EventType type : values()) {
+            BY_SLOT[type.slot] = type;
+        }
+    }
+
+    // index of the center handling the event
+    public final int node;
+    // ARRIVAL or COMPLETION
+    public final int kind;
+    // node * KINDS + kind, dense index of the (node, kind) pairs
+    public final int slot;
+
+    EventType(int node, int kind) {
+        this.node = node;
+        this.kind = kind;
+        this.slot = node * KINDS + kind;
+    }
+
+    public static EventType of(int node, int kind) {
+        return BY_SLOT[node * KINDS + kind];
+    }
 }
@@ -2,6 +2,8 @@ package org.pmcsn.model;
 
 import java.util.List;
 
+import static org.pmcsn.model.AbstractStatistics.Index.*;
+
 public class MeanStatistics {
     public String centerName;
     public double meanResponseTime;
@@ -12,15 +14,16 @@ public class MeanStatistics {
     public double meanUtilization;
     public double meanQueuePopulation;
 
+    // from the accumulators of the series, in O(1)
     public MeanStatistics(AbstractStatistics stats) {
         this.centerName = stats.getCenterName();
-        this.meanResponseTime = computeMean(stats.meanResponseTimeList);
-        this.meanServiceTime = computeMean(stats.meanServiceTimeList);
-        this.meanQueueTime = computeMean(stats.meanQueueTimeList);
-        this.lambda = computeMean(stats.lambdaList);
-        this.meanSystemPopulation = computeMean(stats.meanSystemPopulationList);
-        this.meanUtilization = computeMean(stats.meanUtilizationList);
-        this.meanQueuePopulation = computeMean(stats.meanQueuePopulationList);
+        this.meanResponseTime = stats.getAccumulator(ResponseTime).getMean();
+        this.meanServiceTime = stats.getAccumulator(ServiceTime).getMean();
+        this.meanQueueTime = stats.getAccumulator(QueueTime).getMean();
+        this.lambda = stats.getAccumulator(Lambda).getMean();
+        this.meanSystemPopulation = stats.getAccumulator(SystemPopulation).getMean();
+        this.meanUtilization = stats.getAccumulator(Utilization).getMean();
+        this.meanQueuePopulation = stats.getAccumulator(QueuePopulation).getMean();
     }
 
     public static double computeMean(List<Double> values) {
@@ -1,5 +1,9 @@
 package org.pmcsn.model;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 public class MsqEvent {
     public double service;
     public double time;   //time
@@ -17,6 +21,17 @@ public class MsqEvent {
         this.nodeId = nodeId;
     }
 
+    // re-initializes a pooled instance as if it had just been constructed
+    void set(EventType type, double time, double service, int serverId, int nodeId) {
+        this.type = type;
+        this.service = service;
+        this.time = time;
+        this.serverId = serverId;
+        this.nodeId = nodeId;
+        this.isFeedback = false;
+        this.postiRichiesti = 0;
+    }
+
     public MsqEvent(EventType type, double time, int serverId) {
         this(type, time, 0, serverId, 0);
     }
@@ -37,6 +52,23 @@ public class MsqEvent {
         this(eventType, 0, 0);
     }
 
+    public void writeState(DataOutput out) throws IOException {
+        out.writeByte(type.ordinal());
+        out.writeDouble(time);
+        out.writeDouble(service);
+        out.writeInt(serverId);
+        out.writeInt(nodeId);
+        out.writeBoolean(isFeedback);
+        out.writeInt(postiRichiesti);
+    }
+
+    public static MsqEvent readState(DataInput in) throws IOException {
+        MsqEvent event = new MsqEvent(EventType.values()[in.readByte()], in.readDouble(), in.readDouble(), in.readInt(), in.readInt());
+        event.isFeedback = in.readBoolean();
+        event.postiRichiesti = in.readInt();
+        return event;
+    }
+
     public double getTime(){
         return time;
     }
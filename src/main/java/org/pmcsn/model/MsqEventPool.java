@@ -0,0 +1,39 @@
+package org.pmcsn.model;
+
+import java.util.Arrays;
+
+// Free list of MsqEvent instances: events are acquired when scheduled and released by
+// whoever consumes them, so that steady-state simulation does not allocate per event
+public class MsqEventPool {
+    private MsqEvent[] free = new MsqEvent[64];
+    private int count = 0;
+
+    public MsqEvent acquire(EventType type, double time, double service, int serverId, int nodeId) {
+        if (count == 0) {
+            return new MsqEvent(type, time, service, serverId, nodeId);
+        }
+        MsqEvent event = free[--count];
+        free[count] = null;
+        event.set(type, time, service, serverId, nodeId);
+        return event;
+    }
+
+    public MsqEvent acquire(EventType type, double time, double service, int serverId) {
+        return acquire(type, time, service, serverId, 0);
+    }
+
+    public MsqEvent acquire(EventType type, double time) {
+        return acquire(type, time, 0, 0, 0);
+    }
+
+    public void release(MsqEvent event) {
+        if (count == free.length) {
+            free = Arrays.copyOf(free, count * 2);
+        }
+        free[count++] = event;
+    }
+
+    public int available() {
+        return count;
+    }
+}
@@ -1,5 +1,9 @@
 package org.pmcsn.model;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 public class MsqServer {
     public double lastCompletionTime;
     public boolean running;
@@ -7,6 +11,7 @@ public class MsqServer {
     public int capacitaRimanente;
     public int numRichiesteServite;
     public double svc;
+    public int completionHandle = EventList.NO_HANDLE;   /* pending completion in the event queue */
 
     public MsqServer() {
         this.lastCompletionTime = 0;
@@ -16,5 +21,25 @@ public class MsqServer {
     public void reset() {
         this.lastCompletionTime = 0;
         this.running = false;
+        this.completionHandle = EventList.NO_HANDLE;
+    }
+
+    // the capacity comes from the configuration and the handle is bound again when the event
+    // queue is restored, so neither is part of the state
+    public void writeState(DataOutput out) throws IOException {
+        out.writeDouble(lastCompletionTime);
+        out.writeBoolean(running);
+        out.writeInt(capacitaRimanente);
+        out.writeInt(numRichiesteServite);
+        out.writeDouble(svc);
+    }
+
+    public void readState(DataInput in) throws IOException {
+        lastCompletionTime = in.readDouble();
+        running = in.readBoolean();
+        capacitaRimanente = in.readInt();
+        numRichiesteServite = in.readInt();
+        svc = in.readDouble();
+        completionHandle = EventList.NO_HANDLE;
     }
 }
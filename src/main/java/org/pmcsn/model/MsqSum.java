@@ -1,5 +1,9 @@
 package org.pmcsn.model;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 public class MsqSum {                      /* accumulated sums of                */
     public double service = 0;                   /*   service times                    */
     public long served = 0;                    /*   number served                    */
@@ -9,6 +13,16 @@ public class MsqSum {                      /* accumulated sums of
         this.served = 0;
     }
 
+    public void writeState(DataOutput out) throws IOException {
+        out.writeDouble(service);
+        out.writeLong(served);
+    }
+
+    public void readState(DataInput in) throws IOException {
+        service = in.readDouble();
+        served = in.readLong();
+    }
+
     @Override
     public String toString() {
         return "MsqSum{service=" + service + ", served=" + served + "}";
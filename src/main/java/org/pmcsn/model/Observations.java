@@ -1,5 +1,8 @@
 package org.pmcsn.model;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -27,4 +30,19 @@ public class Observations {
     public void reset() {
         observations.clear();
     }
+
+    public void writeState(DataOutput out) throws IOException {
+        out.writeInt(observations.size());
+        for (double point : observations) {
+            out.writeDouble(point);
+        }
+    }
+
+    public void readState(DataInput in) throws IOException {
+        observations.clear();
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            observations.add(in.readDouble());
+        }
+    }
 }
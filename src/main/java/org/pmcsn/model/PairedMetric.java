@@ -0,0 +1,27 @@
+package org.pmcsn.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.pmcsn.model.ConfidenceIntervals.computeConfidenceInterval;
+
+// Helper class to hold a metric of two models run on common random numbers: the per-run
+// differences (improved - baseline) and the half-widths of the paired and of the unpaired interval
+public class PairedMetric {
+    public String name;
+    public List<Double> differences = new ArrayList<>();
+    public double meanDifference;
+    public double pairedCI;
+    public double unpairedCI;
+
+    public PairedMetric(String name, List<Double> baseline, List<Double> improved) {
+        this.name = name;
+        for (int i = 0; i < baseline.size(); i++) {
+            differences.add(improved.get(i) - baseline.get(i));
+        }
+        this.meanDifference = differences.stream().mapToDouble(Double::doubleValue).average().orElseThrow();
+        this.pairedCI = computeConfidenceInterval(differences);
+        // the interval the same runs would give if the two models were independent
+        this.unpairedCI = Math.hypot(computeConfidenceInterval(baseline), computeConfidenceInterval(improved));
+    }
+}
@@ -0,0 +1,116 @@
+package org.pmcsn.model;
+
+import java.util.function.Function;
+
+// Hierarchical event list: the events of every center live in a local list of their own and a
+// tournament tree over the heads of the local lists yields the globally most imminent event.
+// Scheduling or rescheduling a completion only touches the local list of its center plus the
+// log2(partitions) matches on the path to the root.
+// All the local lists share the same pool, so instances flow freely between them.
+public class PartitionedEventList implements EventList {
+    private final EventList[] locals;
+    private final int leaves;
+    // cached head time of every leaf (+inf for the padding leaves)
+    private final double[] heads;
+    // winner[i] is the partition winning the match at internal node i (root at 1)
+    private final int[] winner;
+
+    // handle = localHandle << shift | partition
+    private final int shift;
+    private final int mask;
+
+    private int size = 0;
+    private final MsqEventPool pool = new MsqEventPool();
+
+    public PartitionedEventList(int partitions, Function<MsqEventPool, EventList> localFactory) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("Invalid number of partitions: " + partitions);
+        }
+        this.locals = new EventList[partitions];
+        for (int p = 0; p < partitions; p++) {
+            locals[p] = localFactory.apply(pool);
+        }
+        this.leaves = Math.max(2, Integer.highestOneBit(partitions - 1) << 1);
+        this.heads = new double[leaves];
+        this.winner = new int[leaves];
+        this.shift = Integer.numberOfTrailingZeros(leaves);
+        this.mask = leaves - 1;
+        for (int p = 0; p < leaves; p++) {
+            heads[p] = Double.POSITIVE_INFINITY;
+        }
+        for (int i = leaves - 1; i >= 1; i--) {
+            winner[i] = play(contender(2 * i), contender(2 * i + 1));
+        }
+    }
+
+    @Override
+    public int add(MsqEvent event) {
+        int p = event.type.node;
+        if (p >= locals.length) {
+            throw new IllegalArgumentException("No partition for event type: " + event.type);
+        }
+        int handle = locals[p].add(event);
+        size++;
+        update(p);
+        return handle << shift | p;
+    }
+
+    @Override
+    public MsqEvent poll() {
+        if (size == 0) {
+            return null;
+        }
+        int p = winner[1];
+        MsqEvent event = locals[p].poll();
+        size--;
+        update(p);
+        return event;
+    }
+
+    @Override
+    public double peekTime() {
+        return heads[winner[1]];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public MsqEventPool pool() {
+        return pool;
+    }
+
+    @Override
+    public void cancel(int handle) {
+        int p = handle & mask;
+        locals[p].cancel(handle >>> shift);
+        size--;
+        update(p);
+    }
+
+    @Override
+    public void reschedule(int handle, double time, double service) {
+        int p = handle & mask;
+        locals[p].reschedule(handle >>> shift, time, service);
+        update(p);
+    }
+
+    // refreshes the head of a partition and replays the matches up to the root
+    private void update(int p) {
+        heads[p] = locals[p].peekTime();
+        for (int i = (p + leaves) >> 1; i >= 1; i >>= 1) {
+            winner[i] = play(contender(2 * i), contender(2 * i + 1));
+        }
+    }
+
+    private int contender(int node) {
+        return node >= leaves ? node - leaves : winner[node];
+    }
+
+    // ties go to the lower partition
+    private int play(int a, int b) {
+        return heads[a] <= heads[b] ? a : b;
+    }
+}
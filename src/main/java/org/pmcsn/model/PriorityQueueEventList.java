@@ -0,0 +1,152 @@
+package org.pmcsn.model;
+
+import java.util.Arrays;
+
+// Binary min-heap of events with the sift rules of java.util.PriorityQueue, so that events of equal
+// time come out in the same order as they did from it. Every event gets a handle, and position[handle]
+// tracks where it sits in the heap so that cancel/reschedule cost O(log n).
+public class PriorityQueueEventList implements EventList {
+    // heap-ordered events and their handles
+    private MsqEvent[] heap = new MsqEvent[64];
+    private int[] handles = new int[64];
+    private int size = 0;
+
+    // heap index of every live handle
+    private int[] position = new int[64];
+    private int[] freeHandles = new int[64];
+    private int freeCount = 0;
+    private int nextHandle = 0;
+
+    private final MsqEventPool pool;
+
+    public PriorityQueueEventList() {
+        this(new MsqEventPool());
+    }
+
+    public PriorityQueueEventList(MsqEventPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public int add(MsqEvent event) {
+        int handle;
+        if (freeCount > 0) {
+            handle = freeHandles[--freeCount];
+        } else {
+            if (nextHandle == position.length) {
+                position = Arrays.copyOf(position, nextHandle * 2);
+                freeHandles = Arrays.copyOf(freeHandles, nextHandle * 2);
+            }
+            handle = nextHandle++;
+        }
+        offer(event, handle);
+        return handle;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    // returns the most imminent event and removes it
+    @Override
+    public MsqEvent poll() {
+        if (size == 0) {
+            return null;
+        }
+        MsqEvent event = heap[0];
+        releaseHandle(handles[0]);
+        removeAt(0);
+        return event;
+    }
+
+    @Override
+    public double peekTime() {
+        return size == 0 ? Double.POSITIVE_INFINITY : heap[0].time;
+    }
+
+    @Override
+    public MsqEventPool pool() {
+        return pool;
+    }
+
+    @Override
+    public void cancel(int handle) {
+        MsqEvent event = heap[position[handle]];
+        removeAt(position[handle]);
+        releaseHandle(handle);
+        pool.release(event);
+    }
+
+    // taken out and offered again, as a PriorityQueue remove(event) followed by add(event) would
+    @Override
+    public void reschedule(int handle, double time, double service) {
+        MsqEvent event = heap[position[handle]];
+        removeAt(position[handle]);
+        event.time = time;
+        event.service = service;
+        offer(event, handle);
+    }
+
+    private void offer(MsqEvent event, int handle) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+            handles = Arrays.copyOf(handles, size * 2);
+        }
+        siftUp(size++, event, handle);
+    }
+
+    // PriorityQueue.removeAt: the last event fills the hole and sifts down, or up if it cannot go down
+    private void removeAt(int pos) {
+        int last = --size;
+        MsqEvent moved = heap[last];
+        int movedHandle = handles[last];
+        heap[last] = null;
+        if (pos == last) {
+            return;
+        }
+        siftDown(pos, moved, movedHandle);
+        if (heap[pos] == moved) {
+            siftUp(pos, moved, movedHandle);
+        }
+    }
+
+    private void siftUp(int pos, MsqEvent event, int handle) {
+        while (pos > 0) {
+            int parent = (pos - 1) >>> 1;
+            if (Double.compare(event.time, heap[parent].time) >= 0) {
+                break;
+            }
+            place(pos, heap[parent], handles[parent]);
+            pos = parent;
+        }
+        place(pos, event, handle);
+    }
+
+    private void siftDown(int pos, MsqEvent event, int handle) {
+        int half = size >>> 1;
+        while (pos < half) {
+            int child = 2 * pos + 1;
+            int right = child + 1;
+            if (right < size && Double.compare(heap[child].time, heap[right].time) > 0) {
+                child = right;
+            }
+            if (Double.compare(event.time, heap[child].time) <= 0) {
+                break;
+            }
+            place(pos, heap[child], handles[child]);
+            pos = child;
+        }
+        place(pos, event, handle);
+    }
+
+    private void place(int pos, MsqEvent event, int handle) {
+        heap[pos] = event;
+        handles[pos] = handle;
+        position[handle] = pos;
+    }
+
+    private void releaseHandle(int handle) {
+        freeHandles[freeCount++] = handle;
+    }
+}
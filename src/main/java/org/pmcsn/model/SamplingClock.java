@@ -0,0 +1,91 @@
+package org.pmcsn.model;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+// Periodic sampling kept outside the event list: every registered sampler fires at multiples of
+// its own interval, and the engine calls advanceTo(nextEventTime) before popping an event so that
+// all the sampling instants preceding it are served against the current state.
+public class SamplingClock {
+    @FunctionalInterface
+    public interface Sampler {
+        void sample(double time);
+    }
+
+    private double[] intervals = new double[4];
+    private double[] nextTimes = new double[4];
+    private Sampler[] samplers = new Sampler[4];
+    private int count = 0;
+    private double next = Double.POSITIVE_INFINITY;
+
+    public void register(double interval, Sampler sampler) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Sampling interval must be positive: " + interval);
+        }
+        if (count == intervals.length) {
+            intervals = Arrays.copyOf(intervals, count * 2);
+            nextTimes = Arrays.copyOf(nextTimes, count * 2);
+            samplers = Arrays.copyOf(samplers, count * 2);
+        }
+        intervals[count] = interval;
+        nextTimes[count] = interval;
+        samplers[count] = sampler;
+        count++;
+        next = Math.min(next, interval);
+    }
+
+    // time of the most imminent sampling instant, +inf if nothing is registered
+    public double nextTime() {
+        return next;
+    }
+
+    // fires, in time order, every sampling instant strictly before the given time
+    public void advanceTo(double time) {
+        while (next < time) {
+            // ties are served in registration order
+            int due = 0;
+            for (int i = 1; i < count; i++) {
+                if (nextTimes[i] < nextTimes[due]) {
+                    due = i;
+                }
+            }
+            double at = nextTimes[due];
+            nextTimes[due] = at + intervals[due];
+            samplers[due].sample(at);
+            next = nextTimes[0];
+            for (int i = 1; i < count; i++) {
+                next = Math.min(next, nextTimes[i]);
+            }
+        }
+    }
+
+    // the samplers themselves are registered again by the owner before readState()
+    public void writeState(DataOutput out) throws IOException {
+        out.writeInt(count);
+        for (int i = 0; i < count; i++) {
+            out.writeDouble(nextTimes[i]);
+        }
+        out.writeDouble(next);
+    }
+
+    public void readState(DataInput in) throws IOException {
+        if (in.readInt() != count) {
+            throw new IOException("Checkpoint has a different number of samplers");
+        }
+        for (int i = 0; i < count; i++) {
+            nextTimes[i] = in.readDouble();
+        }
+        next = in.readDouble();
+    }
+
+    // restarts every sampler from time zero
+    public void reset() {
+        next = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            nextTimes[i] = intervals[i];
+            next = Math.min(next, intervals[i]);
+        }
+    }
+}
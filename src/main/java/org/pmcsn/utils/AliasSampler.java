@@ -0,0 +1,99 @@
+package org.pmcsn.utils;
+
+import org.pmcsn.libraries.RngStream;
+
+// Discrete distribution on a finite set of values, drawn in O(1) by the alias method (Walker; table built
+// with Vose's algorithm): n columns of height 1/n, column i keeps value i with probability keep[i] and
+// gives the rest to value alias[i]. A draw takes exactly one uniform, the integer part of u * n picking
+// the column and the fractional part the value, so the streams stay aligned under common random numbers.
+public class AliasSampler implements Sampler {
+    private final double[] values;
+    private final double[] keep;
+    private final int[] alias;
+
+    public AliasSampler(double[] values, double[] weights) {
+        int n = values.length;
+        if (n == 0 || weights.length != n) {
+            throw new IllegalArgumentException("Invalid distribution: " + n + " values, " + weights.length + " weights");
+        }
+        double total = 0;
+        for (double weight : weights) {
+            if (!(weight >= 0) || Double.isInfinite(weight)) {
+                throw new IllegalArgumentException("Invalid weight: " + weight);
+            }
+            total += weight;
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("Invalid distribution: all the weights are 0");
+        }
+        this.values = values.clone();
+        this.keep = new double[n];
+        this.alias = new int[n];
+
+        // scaled[i] = n p[i]: columns below 1 are filled up by the ones above
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n / total;
+            if (scaled[i] < 1.0) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+        while (smallCount > 0 && largeCount > 0) {
+            int s = small[--smallCount];
+            int l = large[--largeCount];
+            keep[s] = scaled[s];
+            alias[s] = l;
+            scaled[l] = (scaled[l] + scaled[s]) - 1.0;
+            if (scaled[l] < 1.0) {
+                small[smallCount++] = l;
+            } else {
+                large[largeCount++] = l;
+            }
+        }
+        // what is left is 1 up to rounding
+        while (largeCount > 0) {
+            int l = large[--largeCount];
+            keep[l] = 1.0;
+            alias[l] = l;
+        }
+        while (smallCount > 0) {
+            int s = small[--smallCount];
+            keep[s] = 1.0;
+            alias[s] = s;
+        }
+    }
+
+    // the values and counts of a histogram, e.g. a Ddh output
+    public static AliasSampler of(Histogram histogram) {
+        double[] weights = new double[histogram.counts.length];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = histogram.counts[i];
+        }
+        return new AliasSampler(histogram.values, weights);
+    }
+
+    @Override
+    public double sample(RngStream stream) {
+        return values[index(stream.random())];
+    }
+
+    @Override
+    public void transform(double[] u, int from, int to) {
+        for (int i = from; i < to; i++) {
+            u[i] = values[index(u[i])];
+        }
+    }
+
+    // index of the value drawn by the uniform u of (0, 1)
+    public int index(double u) {
+        double x = u * keep.length;
+        int i = (int) x;
+        return (x - i) < keep[i] ? i : alias[i];
+    }
+}
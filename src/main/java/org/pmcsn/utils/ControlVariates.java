@@ -0,0 +1,162 @@
+package org.pmcsn.utils;
+
+import org.pmcsn.configuration.ConfigurationManager;
+import org.pmcsn.libraries.Rvms;
+import org.pmcsn.model.AbstractStatistics;
+import org.pmcsn.utils.AnalyticalComputation.AnalyticalResult;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.pmcsn.model.ConfidenceIntervals.computeConfidenceInterval;
+import static org.pmcsn.utils.PrintUtils.printDebug;
+
+// Control-variate stage of the verification: the per-run (or per-batch) mean service time and
+// arrival rate of a center have known expectations, E[s] of the analytical model and
+// 1/interArrivalTime, so the response time is adjusted as
+//   Ts(β) = Ts - βs (s - E[s]) - βλ (λ - 1/interArrivalTime)
+// with β estimated by least squares over the runs. The interval of the adjusted estimator has
+// n - 3 degrees of freedom (two controls plus the mean).
+// Both expectations are exact only for the baseline model with exponential services (the
+// M/M/c of AnalyticalComputation): the improved model feeds the ride center back into the
+// centers, so their arrival rate is not known in advance.
+public class ControlVariates {
+    private static final int CONTROLS = 2;
+
+    public static class ControlVariateResult {
+        public String name;
+        public double responseTime;
+        public double responseTimeCI;
+        public double adjustedResponseTime;
+        public double adjustedResponseTimeCI;
+        public double betaServiceTime;
+        public double betaLambda;
+        // 1 - Var[Ts(β)] / Var[Ts]
+        public double varianceReduction;
+        public double analyticalResponseTime;
+
+        public ControlVariateResult(String name, double responseTime, double responseTimeCI, double adjustedResponseTime, double adjustedResponseTimeCI, double betaServiceTime, double betaLambda, double varianceReduction, double analyticalResponseTime) {
+            this.name = name;
+            this.responseTime = responseTime;
+            this.responseTimeCI = responseTimeCI;
+            this.adjustedResponseTime = adjustedResponseTime;
+            this.adjustedResponseTimeCI = adjustedResponseTimeCI;
+            this.betaServiceTime = betaServiceTime;
+            this.betaLambda = betaLambda;
+            this.varianceReduction = varianceReduction;
+            this.analyticalResponseTime = analyticalResponseTime;
+        }
+
+        public boolean isWithinInterval() {
+            return Math.abs(analyticalResponseTime - adjustedResponseTime) <= adjustedResponseTimeCI;
+        }
+    }
+
+    public static List<ControlVariateResult> applyControlVariates(String simulationType, List<AnalyticalResult> analyticalResults, List<? extends AbstractStatistics> statisticsList) {
+        printDebug("Applying control variates to the response times...");
+        ConfigurationManager config = new ConfigurationManager();
+        double expectedLambda = 1.0 / config.getDouble("general", "interArrivalTime");
+        List<ControlVariateResult> results = new ArrayList<>();
+
+        for (AbstractStatistics stats : statisticsList) {
+            for (AnalyticalResult result : analyticalResults) {
+                if (stats.getCenterName().contains(result.name) && stats.meanResponseTimeList.size() > CONTROLS + 1) {
+                    results.add(adjust(result, stats, expectedLambda, config.getDouble("general", "levelOfConfidence")));
+                }
+            }
+        }
+        writeControlVariates(simulationType, results);
+        return results;
+    }
+
+    private static ControlVariateResult adjust(AnalyticalResult result, AbstractStatistics stats, double expectedLambda, double levelOfConfidence) {
+        List<Double> y = stats.meanResponseTimeList;
+        List<Double> s = stats.meanServiceTimeList;
+        List<Double> l = stats.lambdaList;
+        int n = y.size();
+
+        double meanY = mean(y), meanS = mean(s), meanL = mean(l);
+        // centered sums of squares and cross products
+        double sss = 0, sll = 0, ssl = 0, sys = 0, syl = 0;
+        for (int i = 0; i < n; i++) {
+            double dy = y.get(i) - meanY;
+            double ds = s.get(i) - meanS;
+            double dl = l.get(i) - meanL;
+            sss += ds * ds;
+            sll += dl * dl;
+            ssl += ds * dl;
+            sys += dy * ds;
+            syl += dy * dl;
+        }
+
+        // least squares β of y on the two controls; a degenerate control (e.g. constant) is dropped
+        double betaS = 0, betaL = 0;
+        double det = sss * sll - ssl * ssl;
+        if (det > 1e-12 * sss * sll) {
+            betaS = (sys * sll - syl * ssl) / det;
+            betaL = (syl * sss - sys * ssl) / det;
+        } else if (sss > 0) {
+            betaS = sys / sss;
+        } else if (sll > 0) {
+            betaL = syl / sll;
+        }
+
+        List<Double> adjusted = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            adjusted.add(y.get(i) - betaS * (s.get(i) - result.Es) - betaL * (l.get(i) - expectedLambda));
+        }
+        double meanAdjusted = mean(adjusted);
+        double varY = 0, varAdjusted = 0;
+        for (int i = 0; i < n; i++) {
+            varY += (y.get(i) - meanY) * (y.get(i) - meanY);
+            varAdjusted += (adjusted.get(i) - meanAdjusted) * (adjusted.get(i) - meanAdjusted);
+        }
+
+        // the estimated β costs the adjusted values a degree of freedom per control
+        long df = n - CONTROLS - 1;
+        double u = 1.0 - 0.5 * (1.0 - levelOfConfidence);
+        double t = new Rvms().idfStudent(df, u);
+        double adjustedCI = t * Math.sqrt(varAdjusted / df / n);
+
+        return new ControlVariateResult(result.name, meanY, computeConfidenceInterval(y), meanAdjusted, adjustedCI,
+                betaS, betaL, varY > 0 ? 1.0 - varAdjusted / varY : 0.0, result.Ets);
+    }
+
+    private static double mean(List<Double> values) {
+        return values.stream().mapToDouble(Double::doubleValue).average().orElseThrow();
+    }
+
+    public static void writeControlVariates(String modelName, List<ControlVariateResult> results) {
+        File file = new File("csvFiles/" + modelName + "/controlVariates/");
+        if (!file.exists()) {
+            file.mkdirs();
+        }
+
+        file = new File("csvFiles/" + modelName + "/controlVariates/controlVariates.csv");
+        try (FileWriter fileWriter = new FileWriter(file)) {
+            String DELIMITER = "\n";
+            String COMMA = ",";
+
+            fileWriter.append("Center, E[Ts], E[Ts]_CI, E[Ts]_CV, E[Ts]_CV_CI, β_s, β_λ, Variance_Reduction, E[Ts]_Analytical, E[Ts]_CV_Within").append(DELIMITER);
+            for (ControlVariateResult result : results) {
+                fileWriter.append(result.name).append(COMMA)
+                        .append(String.valueOf(result.responseTime)).append(COMMA)
+                        .append(String.valueOf(result.responseTimeCI)).append(COMMA)
+                        .append(String.valueOf(result.adjustedResponseTime)).append(COMMA)
+                        .append(String.valueOf(result.adjustedResponseTimeCI)).append(COMMA)
+                        .append(String.valueOf(result.betaServiceTime)).append(COMMA)
+                        .append(String.valueOf(result.betaLambda)).append(COMMA)
+                        .append(String.valueOf(result.varianceReduction)).append(COMMA)
+                        .append(String.valueOf(result.analyticalResponseTime)).append(COMMA)
+                        .append(String.valueOf(result.isWithinInterval())).append(DELIMITER);
+            }
+
+            fileWriter.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
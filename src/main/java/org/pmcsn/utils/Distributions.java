@@ -1,10 +1,14 @@
 package org.pmcsn.utils;
 
+import org.pmcsn.libraries.RngStream;
 import org.pmcsn.libraries.Rngs;
-import org.pmcsn.libraries.Rvgs;
-import org.pmcsn.libraries.Rvms;
 
 public class Distributions {
+    // the block transforms run on the JDK Vector API when jdk.incubator.vector is in the boot layer
+    // (java --add-modules jdk.incubator.vector), on the scalar loops otherwise: the same values up to the
+    // rounding of the vector log and exp
+    public static final boolean VECTOR = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
     public static double erlang(long k, double b, Rngs rngs)
         /* ==================================================
          * Returns an Erlang distributed positive real number.
@@ -30,6 +34,38 @@ public class Distributions {
         return (-m * Math.log(1.0 - rngs.random()));
     }
 
+    public static double exponential(double m, RngStream stream) {
+        return (-m * Math.log(1.0 - stream.random()));
+    }
+
+    public static void exponential(double m, Rngs rngs, int stream, double[] out, int from, int to)
+        /* =========================================================
+         * Block version: out[from..to) gets the variates that as many
+         * calls of exponential(m, rngs) on the given stream would return.
+         * =========================================================
+         */
+    {
+        rngs.fill(stream, out, from, to);
+        exponential(m, out, from, to);
+    }
+
+    public static void exponential(double m, double[] values, int from, int to)
+        /* =========================================================
+         * Block transform: the uniforms in values[from..to) are replaced
+         * by the variates exponential(m, ...) returns for them.
+         * =========================================================
+         */
+    {
+        int i = VECTOR ? VectorTransforms.exponential(m, values, from, to) : from;
+        for (; i < to; i++) {
+            values[i] = (-m * Math.log(1.0 - values[i]));
+        }
+    }
+
+    public static double uniform(double a, double b, RngStream stream) {
+        return (a + (b - a) * stream.random());
+    }
+
     public static double uniform(double a, double b, Rngs rngs) {
         /* --------------------------------------------
          * generate a Uniform random variate, use a < b
@@ -50,6 +86,20 @@ public class Distributions {
         return Math.exp(mu + sigma * normal(0.0, 1.0, rngs));
     }
 
+    public static void logNormal(double a, double b, double[] values, int from, int to)
+        /* ====================================================
+         * Block transform: the uniforms in values[from..to) are
+         * replaced by Lognormal(a, b) variates, by inversion as
+         * Rvms.idfLogNormal (the normal quantile is AS241).
+         * ====================================================
+         */
+    {
+        int i = VECTOR ? VectorTransforms.logNormal(a, b, values, from, to) : from;
+        for (; i < to; i++) {
+            values[i] = Math.exp(a + b * TruncatedNormalSampler.idfStandard(values[i]));
+        }
+    }
+
 
     public static double normal(double m, double s, Rngs rngs)
         /* ========================================================================
@@ -90,23 +140,20 @@ public class Distributions {
      *
      */
     public static double truncatedNormal(double mu, double sigma, double truncationPoint, Rngs rngs) {
-        Rvms rvms = new Rvms();
-        Rvgs rvgs = new Rvgs(rngs);
-
-        // Calculate 'a' and 'b' based on the given mean and variance
-        double variance = sigma*sigma;
-        double b = Math.sqrt(Math.log(1 + (variance / (mu * mu))));
-        double a = Math.log(mu) - 0.5 * b * b;
-
-        // Calculate alpha (CDF at the left tail)
-        double alpha = rvms.cdfLogNormal(a,b,1e-20);
-        // Calculate beta (1 - CDF at truncation point)
-        double beta = 1.0 - rvms.cdfLogNormal(a,b,truncationPoint);
+        return new TruncatedNormalSampler(mu, sigma, truncationPoint, TruncatedNormalSampler.Inverse.NEWTON).sample(rngs);
+    }
 
-        // Generate a uniform value in the range [alpha, 1 - beta]
-        double u = rvgs.uniform(alpha, 1.0 - beta);
+    public static double truncatedNormal(double mu, double sigma, double truncationPoint, RngStream stream) {
+        return new TruncatedNormalSampler(mu, sigma, truncationPoint, TruncatedNormalSampler.Inverse.NEWTON).sample(stream);
+    }
 
-        // Calculate the inverse distribution function
-        return rvms.idfNormal(a, b, u);
+    // block transform: the uniforms in values[from..to) are replaced by the values of
+    // TruncatedNormalSampler.quantile with the AS241 inverse, for its a, b, alpha and beta
+    public static void truncatedNormal(double a, double b, double alpha, double beta, double[] values, int from, int to) {
+        int i = VECTOR ? VectorTransforms.truncatedNormal(a, b, alpha, beta, values, from, to) : from;
+        for (; i < to; i++) {
+            double p = alpha + (1.0 - beta - alpha) * values[i];
+            values[i] = a + b * TruncatedNormalSampler.idfStandard(p);
+        }
     }
 }
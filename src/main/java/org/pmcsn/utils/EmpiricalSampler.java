@@ -0,0 +1,79 @@
+package org.pmcsn.utils;
+
+import org.pmcsn.libraries.RngStream;
+
+// Continuous distribution of a histogram (e.g. a Cdh output): the cdf is piecewise linear through the
+// cumulative proportions at the edges of the bins, i.e. the values are uniform within each bin. Drawn by
+// inversion, one uniform per value and monotone in it, like the other inversion generators.
+public class EmpiricalSampler implements Sampler {
+    private final double[] edges;
+    private final double[] cdf;
+
+    public EmpiricalSampler(double[] edges, double[] weights) {
+        int bins = weights.length;
+        if (bins == 0 || edges.length != bins + 1) {
+            throw new IllegalArgumentException("Invalid histogram: " + edges.length + " edges, " + weights.length + " bins");
+        }
+        double total = 0;
+        for (int j = 0; j < bins; j++) {
+            if (!(weights[j] >= 0) || Double.isInfinite(weights[j]) || !(edges[j + 1] > edges[j])) {
+                throw new IllegalArgumentException("Invalid histogram bin: " + j);
+            }
+            total += weights[j];
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("Invalid histogram: all the counts are 0");
+        }
+        this.edges = edges.clone();
+        this.cdf = new double[bins + 1];
+        double cumulative = 0;
+        for (int j = 0; j < bins; j++) {
+            cumulative += weights[j];
+            cdf[j + 1] = cumulative / total;
+        }
+        cdf[bins] = 1.0;
+    }
+
+    // the bins of a continuous histogram, centred at its midpoints
+    public static EmpiricalSampler of(Histogram histogram) {
+        if (!histogram.continuous) {
+            throw new IllegalArgumentException("Invalid histogram: discrete data has no bins");
+        }
+        int bins = histogram.values.length;
+        double[] edges = new double[bins + 1];
+        double[] weights = new double[bins];
+        for (int j = 0; j < bins; j++) {
+            edges[j] = histogram.values[j] - histogram.width / 2;
+            weights[j] = histogram.counts[j];
+        }
+        edges[bins] = histogram.values[bins - 1] + histogram.width / 2;
+        return new EmpiricalSampler(edges, weights);
+    }
+
+    @Override
+    public double sample(RngStream stream) {
+        return quantile(stream.random());
+    }
+
+    @Override
+    public void transform(double[] values, int from, int to) {
+        for (int i = from; i < to; i++) {
+            values[i] = quantile(values[i]);
+        }
+    }
+
+    // value at the uniform u of (0, 1): the bin j with cdf[j] <= u < cdf[j + 1], then linear within it
+    public double quantile(double u) {
+        int lo = 0;
+        int hi = cdf.length - 1;
+        while (hi - lo > 1) {
+            int mid = (lo + hi) >>> 1;
+            if (cdf[mid] <= u) {
+                lo = mid;
+            } else {
+                hi = mid;
+            }
+        }
+        return edges[lo] + (u - cdf[lo]) / (cdf[lo + 1] - cdf[lo]) * (edges[lo + 1] - edges[lo]);
+    }
+}
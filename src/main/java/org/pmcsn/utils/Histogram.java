@@ -0,0 +1,122 @@
+package org.pmcsn.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// A histogram as printed by the Cdh program (continuous data: bin, midpoint, count, proportion, density)
+// or by the Ddh program (discrete data: value, count, proportion): the rows under the header line, up to
+// the summary that follows them. The values are the midpoints of the bins, all 'width' wide, or the
+// values themselves for discrete data.
+public class Histogram {
+    public final double[] values;
+    public final long[] counts;
+    public final boolean continuous;
+    public final double width;
+
+    private Histogram(double[] values, long[] counts, boolean continuous, double width) {
+        this.values = values;
+        this.counts = counts;
+        this.continuous = continuous;
+        this.width = width;
+    }
+
+    // a file, or else a resource on the classpath like config.properties
+    public static Histogram read(String location) {
+        try {
+            Path path = Path.of(location);
+            if (Files.isRegularFile(path)) {
+                return parse(Files.readAllLines(path, StandardCharsets.UTF_8), location);
+            }
+            try (InputStream input = Histogram.class.getClassLoader().getResourceAsStream(location)) {
+                if (input == null) {
+                    throw new IllegalArgumentException("Histogram not found: " + location);
+                }
+                BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+                return parse(reader.lines().toList(), location);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read histogram " + location, e);
+        }
+    }
+
+    static Histogram parse(List<String> lines, String source) {
+        List<String> header = null;
+        List<double[]> rows = new ArrayList<>();
+        for (String line : lines) {
+            String[] tokens = line.trim().split("\\s+");
+            if (header == null) {
+                if (Arrays.asList(tokens).contains("count")) {
+                    header = Arrays.asList(tokens);
+                }
+                continue;
+            }
+            double[] row = row(tokens, header.size());
+            if (row != null) {
+                rows.add(row);
+            } else if (!rows.isEmpty()) {
+                break;
+            }
+        }
+        if (header == null || rows.isEmpty()) {
+            throw new IllegalArgumentException("Invalid histogram: " + source + " (no rows under a header with a count column)");
+        }
+        boolean continuous = header.contains("midpoint");
+        int valueColumn = header.indexOf(continuous ? "midpoint" : "value");
+        int countColumn = header.indexOf("count");
+        if (valueColumn < 0) {
+            throw new IllegalArgumentException("Invalid histogram: " + source + " (no midpoint or value column)");
+        }
+
+        double[] values = new double[rows.size()];
+        long[] counts = new long[rows.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = rows.get(i)[valueColumn];
+            counts[i] = (long) rows.get(i)[countColumn];
+            if (counts[i] < 0 || (i > 0 && values[i] <= values[i - 1])) {
+                throw new IllegalArgumentException("Invalid histogram: " + source + " (row " + (i + 1) + ")");
+            }
+        }
+        if (Arrays.stream(counts).sum() == 0) {
+            throw new IllegalArgumentException("Invalid histogram: " + source + " (no data)");
+        }
+
+        double width = 0;
+        if (continuous) {
+            // Cdh bins are all DELTA wide: recover it from the midpoints
+            if (values.length < 2) {
+                throw new IllegalArgumentException("Invalid histogram: " + source + " (a single bin has no width)");
+            }
+            width = (values[values.length - 1] - values[0]) / (values.length - 1);
+            for (int i = 1; i < values.length; i++) {
+                if (Math.abs(values[i] - values[i - 1] - width) > 1e-6 * Math.max(1.0, width)) {
+                    throw new IllegalArgumentException("Invalid histogram: " + source + " (bins of different width)");
+                }
+            }
+        }
+        return new Histogram(values, counts, continuous, width);
+    }
+
+    // the numbers of a data row, null for any other line; Cdh formats them with the default locale
+    private static double[] row(String[] tokens, int columns) {
+        if (tokens.length != columns) {
+            return null;
+        }
+        double[] row = new double[columns];
+        try {
+            for (int i = 0; i < columns; i++) {
+                row[i] = Double.parseDouble(tokens[i].replace(',', '.'));
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return row;
+    }
+}
@@ -3,6 +3,7 @@ package org.pmcsn.utils;
 
 import org.pmcsn.configuration.ConfigurationManager;
 import org.pmcsn.model.BatchMetric;
+import org.pmcsn.model.PairedMetric;
 
 import java.util.List;
 import java.util.Scanner;
@@ -61,6 +62,32 @@ public class PrintUtils {
         System.out.println(BRIGHT_RED + "*******************************************************************************************************" + RESET);
     }
 
+    public static void printPairedResults(String centerName, List<PairedMetric> pairedMetrics, int runsNumber) {
+        System.out.println(BRIGHT_RED + "\n\n*******************************************************************************************************");
+        System.out.println("PAIRED DIFFERENCES (IMPROVED - BASELINE) FOR " + centerName.toUpperCase() + " [runs:" + runsNumber + "]");
+        System.out.println("*******************************************************************************************************" + RESET);
+        for (PairedMetric pairedMetric : pairedMetrics) {
+            System.out.printf("%s: %s%.6f%s ± %s%.6f%s (unpaired ± %.6f)%n", pairedMetric.name,
+                    BRIGHT_YELLOW, pairedMetric.meanDifference, RESET,
+                    BRIGHT_GREEN, pairedMetric.pairedCI, RESET, pairedMetric.unpairedCI);
+        }
+        System.out.println(BRIGHT_RED + "*******************************************************************************************************" + RESET);
+    }
+
+    public static void printControlVariates(List<ControlVariates.ControlVariateResult> controlVariateResults, int runsNumber) {
+        System.out.println(BRIGHT_RED + "\n\n*******************************************************************************************************");
+        System.out.println("CONTROL VARIATES ON E[Ts] (CONTROLS: E[s], λ) [runs:" + runsNumber + "]");
+        System.out.println("*******************************************************************************************************" + RESET);
+        for (ControlVariates.ControlVariateResult result : controlVariateResults) {
+            System.out.printf("%s: %s%.6f%s ± %.6f -> %s%.6f%s ± %s%.6f%s (variance reduction %.1f%%, β_s %.4f, β_λ %.4f)%n", result.name,
+                    BRIGHT_YELLOW, result.responseTime, RESET, result.responseTimeCI,
+                    BRIGHT_YELLOW, result.adjustedResponseTime, RESET,
+                    BRIGHT_GREEN, result.adjustedResponseTimeCI, RESET,
+                    100 * result.varianceReduction, result.betaServiceTime, result.betaLambda);
+        }
+        System.out.println(BRIGHT_RED + "*******************************************************************************************************" + RESET);
+    }
+
     private static String getAcfColor(double value) {
         if (Math.abs(value) > 0.2) {
             return BRIGHT_RED;
@@ -154,6 +181,8 @@ public class PrintUtils {
         System.out.println(BRIGHT_RED + "3" + RESET + ". Simple Simulation VERIFICATION");
         System.out.println(BRIGHT_RED + "4" + RESET + ". Improved Model Simulation Finite Horizon");
         System.out.println(BRIGHT_RED + "5" + RESET + ". Improved Model Simulation Infinite Horizon");
+        System.out.println(BRIGHT_RED + "6" + RESET + ". Improved Model Simulation Finite Horizon (replication farm)");
+        System.out.println(BRIGHT_RED + "7" + RESET + ". Baseline vs Improved Model Finite Horizon (common random numbers)");
 
         System.out.print(BRIGHT_RED + "Enter the simulation type number: " + RESET);
     }
@@ -11,19 +11,9 @@ public class ProbabilitiesUtils {
     }
 
     public static int getRandomValueUpToMax(Rngs rngs, int streamIndex, int maxValue) {
-        double prob = 1.0 / maxValue;
         rngs.selectStream(streamIndex);
-        double random = rngs.random();
-
-        // Mappa il valore casuale a un numero intero tra 1 e maxValue
-        for (int i = 1; i <= maxValue; i++) {
-            if (random < i * prob) {
-                return i;
-            }
-        }
-
-        // Questo punto non dovrebbe mai essere raggiunto, ma è qui come fallback
-        return maxValue;
+        // valori equiprobabili: l'intervallo di random * maxValue è già il valore, senza scorrere le soglie
+        return Math.min(maxValue, 1 + (int) (rngs.random() * maxValue));
     }
 
     private static boolean generateProbability(double beta, Rngs rngs, int streamIndex) {
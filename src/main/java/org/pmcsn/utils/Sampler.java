@@ -0,0 +1,12 @@
+package org.pmcsn.utils;
+
+import org.pmcsn.libraries.RngStream;
+
+// A distribution drawn from a stream handle, e.g. the service times of a center.
+// The samplers invert one uniform per value: transform() replaces the uniforms in values[from..to) by what
+// sample() would draw from them, so that a block of values can be drawn ahead (see ServiceGenerator).
+public interface Sampler {
+    double sample(RngStream stream);
+
+    void transform(double[] values, int from, int to);
+}
@@ -0,0 +1,124 @@
+package org.pmcsn.utils;
+
+import org.pmcsn.libraries.RngStream;
+import org.pmcsn.libraries.Rngs;
+import org.pmcsn.libraries.Rvms;
+
+// The service times of Distributions.truncatedNormal for one (mean, sigma, truncationPoint), built once
+// per center: the lognormal parameters a, b and the probabilities alpha, beta of the two tails are
+// computed in the constructor, a draw only maps its uniform onto [alpha, 1 - beta] and inverts it.
+// NEWTON inverts with Rvms (Newton-Raphson on cdfStandard, stopped at 1e-10), the same values as
+// Distributions.truncatedNormal; AS241 uses Wichura's rational approximation, relative error below 1e-15.
+// sampleZiggurat() draws the same distribution by rejecting the ziggurat normals out of [zLow, zHigh].
+public class TruncatedNormalSampler implements Sampler {
+    public enum Inverse { NEWTON, AS241 }
+
+    public final double a;
+    public final double b;
+    public final double alpha;
+    public final double beta;
+    // standard normal bounds matching [alpha, 1 - beta]
+    public final double zLow;
+    public final double zHigh;
+    public final Inverse inverse;
+    private final Rvms rvms = new Rvms();
+
+    public TruncatedNormalSampler(double mu, double sigma, double truncationPoint, Inverse inverse) {
+        // Calculate 'a' and 'b' based on the given mean and variance
+        double variance = sigma * sigma;
+        this.b = Math.sqrt(Math.log(1 + (variance / (mu * mu))));
+        this.a = Math.log(mu) - 0.5 * b * b;
+        // Calculate alpha (CDF at the left tail)
+        this.alpha = rvms.cdfLogNormal(a, b, 1e-20);
+        // Calculate beta (1 - CDF at truncation point)
+        this.beta = 1.0 - rvms.cdfLogNormal(a, b, truncationPoint);
+        this.zLow = (Math.log(1e-20) - a) / b;
+        this.zHigh = (Math.log(truncationPoint) - a) / b;
+        this.inverse = inverse;
+    }
+
+    @Override
+    public double sample(RngStream stream) {
+        return quantile(stream.random());
+    }
+
+    public double sample(Rngs rngs) {
+        return quantile(rngs.random());
+    }
+
+    // AS241 on the block transform of Distributions (vectorized when available), NEWTON one value at a time
+    @Override
+    public void transform(double[] values, int from, int to) {
+        if (inverse == Inverse.AS241) {
+            Distributions.truncatedNormal(a, b, alpha, beta, values, from, to);
+            return;
+        }
+        for (int i = from; i < to; i++) {
+            values[i] = quantile(values[i]);
+        }
+    }
+
+    // a variable number of uniforms per draw: not for common random numbers nor antithetic runs
+    public double sampleZiggurat(RngStream stream) {
+        double z;
+        do {
+            z = Ziggurat.normal(stream);
+        } while (z < zLow || z > zHigh);
+        return a + b * z;
+    }
+
+    // value at the uniform u of (0, 1)
+    public double quantile(double u) {
+        // a uniform value in the range [alpha, 1 - beta]
+        double p = alpha + (1.0 - beta - alpha) * u;
+        if (inverse == Inverse.NEWTON) {
+            return rvms.idfNormal(a, b, p);
+        }
+        return a + b * idfStandard(p);
+    }
+
+    /*
+     * Inverse of the standard normal cdf, 0 < p < 1: algorithm AS 241 (PPND16) of M. J. Wichura,
+     * "The Percentage Points of the Normal Distribution", Applied Statistics 37(3), 1988.
+     * Rational approximations on |p - 0.5| <= 0.425 and on the tails, r = sqrt(-log(min(p, 1 - p))).
+     */
+    public static double idfStandard(double p) {
+        double q = p - 0.5;
+        double r;
+        if (Math.abs(q) <= 0.425) {
+            r = 0.180625 - q * q;
+            return q * (((((((2.5090809287301226727e3 * r + 3.3430575583588128105e4) * r
+                    + 6.7265770927008700853e4) * r + 4.5921953931549871457e4) * r
+                    + 1.3731693765509461125e4) * r + 1.9715909503065514427e3) * r
+                    + 1.3314166789178437745e2) * r + 3.3871328727963666080e0)
+                    / (((((((5.2264952788528545610e3 * r + 2.8729085735721942674e4) * r
+                    + 3.9307895800092710610e4) * r + 2.1213794301586595867e4) * r
+                    + 5.3941960214247511077e3) * r + 6.8718700749205790830e2) * r
+                    + 4.2313330701600911252e1) * r + 1.0);
+        }
+        r = Math.sqrt(-Math.log(q < 0 ? p : 1.0 - p));
+        double x;
+        if (r <= 5.0) {
+            r -= 1.6;
+            x = (((((((7.74545014278341407640e-4 * r + 2.27238449892691845833e-2) * r
+                    + 2.41780725177450611770e-1) * r + 1.27045825245236838258e0) * r
+                    + 3.64784832476320460504e0) * r + 5.76949722146069140550e0) * r
+                    + 4.63033784615654529590e0) * r + 1.42343711074968357734e0)
+                    / (((((((1.05075007164441684324e-9 * r + 5.47593808499534494600e-4) * r
+                    + 1.51986665636164571966e-2) * r + 1.48103976427480074590e-1) * r
+                    + 6.89767334985100004550e-1) * r + 1.67638483018380384940e0) * r
+                    + 2.05319162663775882187e0) * r + 1.0);
+        } else {
+            r -= 5.0;
+            x = (((((((2.01033439929228813265e-7 * r + 2.71155556874348757815e-5) * r
+                    + 1.24266094738807843860e-3) * r + 2.65321895265761230930e-2) * r
+                    + 2.96560571828504891230e-1) * r + 1.78482653991729133580e0) * r
+                    + 5.46378491116411436990e0) * r + 6.65790464350110377720e0)
+                    / (((((((2.04426310338993978564e-15 * r + 1.42151175831644588870e-7) * r
+                    + 1.84631831751005468180e-5) * r + 7.86869131145613259100e-4) * r
+                    + 1.48753612908506148525e-2) * r + 1.36929880922735805310e-1) * r
+                    + 5.99832206555887937690e-1) * r + 1.0);
+        }
+        return q < 0 ? -x : x;
+    }
+}
@@ -0,0 +1,8 @@
+package org.pmcsn.utils;
+
+// How a center draws its exponential and normal variates: INVERSION, one uniform per variate through the
+// inverse cdf (Distributions, TruncatedNormalSampler), or ZIGGURAT (see Ziggurat).
+public enum VariateMethod {
+    INVERSION,
+    ZIGGURAT
+}
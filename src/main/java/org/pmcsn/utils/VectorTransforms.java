@@ -0,0 +1,93 @@
+package org.pmcsn.utils;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+import static jdk.incubator.vector.VectorOperators.*;
+
+// The block transforms of Distributions on the JDK Vector API, loaded only when jdk.incubator.vector is in
+// the boot layer (see Distributions.VECTOR). Each method transforms the whole vectors in values[from..to)
+// and returns where it stopped: the caller finishes the block with its scalar loop. The arithmetic is the
+// one of the scalar code, operation by operation, so the values differ only by the rounding of the vector
+// log and exp.
+final class VectorTransforms {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    // AS241 coefficients, highest degree first (see TruncatedNormalSampler.idfStandard)
+    private static final double[] CENTRAL_P = {2.5090809287301226727e3, 3.3430575583588128105e4,
+            6.7265770927008700853e4, 4.5921953931549871457e4, 1.3731693765509461125e4,
+            1.9715909503065514427e3, 1.3314166789178437745e2, 3.3871328727963666080e0};
+    private static final double[] CENTRAL_Q = {5.2264952788528545610e3, 2.8729085735721942674e4,
+            3.9307895800092710610e4, 2.1213794301586595867e4, 5.3941960214247511077e3,
+            6.8718700749205790830e2, 4.2313330701600911252e1, 1.0};
+    private static final double[] NEAR_P = {7.74545014278341407640e-4, 2.27238449892691845833e-2,
+            2.41780725177450611770e-1, 1.27045825245236838258e0, 3.64784832476320460504e0,
+            5.76949722146069140550e0, 4.63033784615654529590e0, 1.42343711074968357734e0};
+    private static final double[] NEAR_Q = {1.05075007164441684324e-9, 5.47593808499534494600e-4,
+            1.51986665636164571966e-2, 1.48103976427480074590e-1, 6.89767334985100004550e-1,
+            1.67638483018380384940e0, 2.05319162663775882187e0, 1.0};
+    private static final double[] FAR_P = {2.01033439929228813265e-7, 2.71155556874348757815e-5,
+            1.24266094738807843860e-3, 2.65321895265761230930e-2, 2.96560571828504891230e-1,
+            1.78482653991729133580e0, 5.46378491116411436990e0, 6.65790464350110377720e0};
+    private static final double[] FAR_Q = {2.04426310338993978564e-15, 1.42151175831644588870e-7,
+            1.84631831751005468180e-5, 7.86869131145613259100e-4, 1.48753612908506148525e-2,
+            1.36929880922735805310e-1, 5.99832206555887937690e-1, 1.0};
+
+    private VectorTransforms() {
+    }
+
+    // -m log(1 - u)
+    static int exponential(double m, double[] values, int from, int to) {
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            DoubleVector u = DoubleVector.fromArray(SPECIES, values, i);
+            DoubleVector.broadcast(SPECIES, 1.0).sub(u).lanewise(LOG).mul(-m).intoArray(values, i);
+        }
+        return i;
+    }
+
+    // exp(a + b z), z the standard normal quantile of u
+    static int logNormal(double a, double b, double[] values, int from, int to) {
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            DoubleVector z = idfStandard(DoubleVector.fromArray(SPECIES, values, i));
+            z.mul(b).add(a).lanewise(EXP).intoArray(values, i);
+        }
+        return i;
+    }
+
+    // a + b z, z the standard normal quantile of u mapped onto [alpha, 1 - beta]
+    static int truncatedNormal(double a, double b, double alpha, double beta, double[] values, int from, int to) {
+        double width = 1.0 - beta - alpha;
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            DoubleVector p = DoubleVector.fromArray(SPECIES, values, i).mul(width).add(alpha);
+            idfStandard(p).mul(b).add(a).intoArray(values, i);
+        }
+        return i;
+    }
+
+    // AS241 without branches: the three approximations on every lane, each lane keeping its own
+    private static DoubleVector idfStandard(DoubleVector p) {
+        DoubleVector q = p.sub(0.5);
+        VectorMask<Double> negative = q.compare(LT, 0.0);
+        DoubleVector r = DoubleVector.broadcast(SPECIES, 0.180625).sub(q.mul(q));
+        DoubleVector central = q.mul(horner(CENTRAL_P, r)).div(horner(CENTRAL_Q, r));
+
+        DoubleVector s = DoubleVector.broadcast(SPECIES, 1.0).sub(p).blend(p, negative).lanewise(LOG).neg().lanewise(SQRT);
+        DoubleVector near = s.sub(1.6);
+        DoubleVector far = s.sub(5.0);
+        DoubleVector x = horner(NEAR_P, near).div(horner(NEAR_Q, near))
+                .blend(horner(FAR_P, far).div(horner(FAR_Q, far)), s.compare(GT, 5.0));
+        return x.blend(x.neg(), negative).blend(central, q.lanewise(ABS).compare(LE, 0.425));
+    }
+
+    private static DoubleVector horner(double[] c, DoubleVector r) {
+        DoubleVector acc = DoubleVector.broadcast(SPECIES, c[0]);
+        for (int k = 1; k < c.length; k++) {
+            acc = acc.mul(r).add(c[k]);
+        }
+        return acc;
+    }
+}
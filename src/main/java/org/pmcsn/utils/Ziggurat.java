@@ -0,0 +1,119 @@
+package org.pmcsn.utils;
+
+import org.pmcsn.libraries.RngStream;
+
+import java.util.function.DoubleUnaryOperator;
+
+// Standard normal and exponential variates by the ziggurat method of G. Marsaglia and W. W. Tsang,
+// "The Ziggurat Method for Generating Random Variables", J. Statistical Software 5(8), 2000, in the
+// floating-point layout of J. A. Doornik, "An Improved Ziggurat Method to Generate Normal Random
+// Samples", 2005: 128 boxes for the normal, 256 for the exponential.
+// Most draws take one uniform and no transcendental function: the box is the integer part of u * boxes
+// and the position in it the fractional part, so the position keeps 7 (8) bits less than u. The number of
+// uniforms per variate is not fixed and the variate is not monotone in them: where the streams must stay
+// aligned (common random numbers, antithetic runs) the inversion of Distributions is the one to use.
+public class Ziggurat {
+    private static final int NORMAL_BOXES = 128;
+    private static final double NORMAL_R = 3.442619855899;
+    private static final double NORMAL_V = 9.91256303526217e-3;
+    private static final int EXPONENTIAL_BOXES = 256;
+    private static final double EXPONENTIAL_R = 7.69711747013104972;
+    private static final double EXPONENTIAL_V = 3.949659822581572e-3;
+
+    // box i spans [0, x[i]) and, for i > 0, the densities between f[i] and f[i + 1]; box 0 is the base
+    // strip plus the tail. Below ratio[i] = x[i + 1] / x[i] a point is under the density in any case.
+    private static final double[] NORMAL_X = new double[NORMAL_BOXES + 1];
+    private static final double[] NORMAL_F = new double[NORMAL_BOXES + 1];
+    private static final double[] NORMAL_RATIO = new double[NORMAL_BOXES];
+    private static final double[] EXPONENTIAL_X = new double[EXPONENTIAL_BOXES + 1];
+    private static final double[] EXPONENTIAL_F = new double[EXPONENTIAL_BOXES + 1];
+    private static final double[] EXPONENTIAL_RATIO = new double[EXPONENTIAL_BOXES];
+
+    static {
+        tables(NORMAL_X, NORMAL_F, NORMAL_RATIO, NORMAL_R, NORMAL_V,
+                x -> Math.exp(-0.5 * x * x), y -> Math.sqrt(-2.0 * Math.log(y)));
+        tables(EXPONENTIAL_X, EXPONENTIAL_F, EXPONENTIAL_RATIO, EXPONENTIAL_R, EXPONENTIAL_V,
+                x -> Math.exp(-x), y -> -Math.log(y));
+    }
+
+    // boxes of area v under the density f (f(0) = 1), the first one starting at r
+    private static void tables(double[] x, double[] f, double[] ratio, double r, double v,
+                               DoubleUnaryOperator density, DoubleUnaryOperator inverse) {
+        int boxes = ratio.length;
+        x[0] = v / density.applyAsDouble(r);
+        x[1] = r;
+        for (int i = 2; i < boxes; i++) {
+            x[i] = inverse.applyAsDouble(v / x[i - 1] + density.applyAsDouble(x[i - 1]));
+        }
+        x[boxes] = 0;
+        for (int i = 0; i <= boxes; i++) {
+            f[i] = i == 0 ? 0 : density.applyAsDouble(x[i]);
+        }
+        for (int i = 0; i < boxes; i++) {
+            ratio[i] = x[i + 1] / x[i];
+        }
+    }
+
+    public static double normal(RngStream stream) {
+        for (;;) {
+            double u = stream.random() * NORMAL_BOXES;
+            int i = (int) u;
+            double s = 2.0 * (u - i) - 1.0;
+            if (Math.abs(s) < NORMAL_RATIO[i]) {
+                return s * NORMAL_X[i];
+            }
+            if (i == 0) {
+                return normalTail(stream, s < 0);
+            }
+            double x = s * NORMAL_X[i];
+            if (NORMAL_F[i] + stream.random() * (NORMAL_F[i + 1] - NORMAL_F[i]) < Math.exp(-0.5 * x * x)) {
+                return x;
+            }
+        }
+    }
+
+    // beyond NORMAL_R, by Marsaglia's method for the tail
+    private static double normalTail(RngStream stream, boolean negative) {
+        double x;
+        double y;
+        do {
+            x = -Math.log(stream.random()) / NORMAL_R;
+            y = -Math.log(stream.random());
+        } while (2.0 * y < x * x);
+        return negative ? -(NORMAL_R + x) : NORMAL_R + x;
+    }
+
+    public static double exponential(RngStream stream) {
+        for (;;) {
+            double u = stream.random() * EXPONENTIAL_BOXES;
+            int i = (int) u;
+            double s = u - i;
+            if (s < EXPONENTIAL_RATIO[i]) {
+                return s * EXPONENTIAL_X[i];
+            }
+            if (i == 0) {
+                // the exponential has no memory: past EXPONENTIAL_R the tail is EXPONENTIAL_R + Exp(1)
+                return EXPONENTIAL_R - Math.log(stream.random());
+            }
+            double x = s * EXPONENTIAL_X[i];
+            if (EXPONENTIAL_F[i] + stream.random() * (EXPONENTIAL_F[i + 1] - EXPONENTIAL_F[i]) < Math.exp(-x)) {
+                return x;
+            }
+        }
+    }
+
+    // how far the last box of each table ends from the top of its density (f(0) = 1): 0 up to rounding
+    // when the constants R and V are consistent
+    public static double normalClosure() {
+        return closure(NORMAL_X, NORMAL_V, x -> Math.exp(-0.5 * x * x));
+    }
+
+    public static double exponentialClosure() {
+        return closure(EXPONENTIAL_X, EXPONENTIAL_V, x -> Math.exp(-x));
+    }
+
+    private static double closure(double[] x, double v, DoubleUnaryOperator density) {
+        int last = x.length - 2;
+        return Math.abs(v / x[last] + density.applyAsDouble(x[last]) - 1.0);
+    }
+}
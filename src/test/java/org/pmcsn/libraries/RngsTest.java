@@ -0,0 +1,52 @@
+package org.pmcsn.libraries;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// The bulk Rngs.fill() and the buffered RngStream walk the very same sequence as repeated random()
+// calls, block boundaries included, on every generator and on both polarities: this is what keeps the
+// outputs of the runners byte-identical whichever path the centers draw through.
+class RngsTest {
+    private static final int STREAM = 52;
+
+    @ParameterizedTest
+    @CsvSource({"lehmer, false", "lehmer, true", "mrg32k3a, false", "mrg32k3a, true", "l64x128, false", "l64x128, true"})
+    void bulkDrawsMatchRandom(String generator, boolean antithetic) {
+        Rngs reference = rngs(generator, antithetic);
+        Rngs bulk = rngs(generator, antithetic);
+        Rngs view = rngs(generator, antithetic);
+        reference.selectStream(STREAM);
+        RngStream stream = new RngStream(view, STREAM, 100);
+        double[] u = new double[257];
+        double[] w = new double[257];
+        for (int round = 0; round < 1000; round++) {
+            int n = 1 + round % u.length;
+            bulk.fill(STREAM, u, 0, n);
+            stream.fill(w, 0, n / 2);
+            for (int i = n / 2; i < n; i++) {
+                w[i] = stream.random();
+            }
+            for (int i = 0; i < n; i++) {
+                double expected = reference.random();
+                assertEquals(expected, u[i], "fill at round " + round + ", index " + i);
+                assertEquals(expected, w[i], "RngStream at round " + round + ", index " + i);
+            }
+        }
+        bulk.selectStream(STREAM);
+        assertEquals(reference.random(), bulk.random(), "state of the stream after the bulk draws");
+    }
+
+    private static Rngs rngs(String generator, boolean antithetic) {
+        Rngs rngs = switch (generator) {
+            case "lehmer" -> new Rngs();
+            case "mrg32k3a" -> new Rngs(new Mrg32k3a());
+            case "l64x128" -> new Rngs(new SplittableBackend());
+            default -> throw new IllegalArgumentException(generator);
+        };
+        rngs.plantSeeds(987654321L);
+        rngs.setAntithetic(antithetic);
+        return rngs;
+    }
+}
@@ -0,0 +1,82 @@
+package org.pmcsn.model;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.pmcsn.centers.SimpleCenter;
+import org.pmcsn.configuration.CenterFactory;
+import org.pmcsn.libraries.Rngs;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.pmcsn.model.EventType.*;
+
+// The baseline model's event loop allocates nothing once it has reached steady state, with the shipped
+// configuration (truncated services, default inverse) on every event list: the events come from the pool,
+// the arrivals from the pre-generated blocks and the services from samplers built once per center.
+// Measured with the per-thread allocated-bytes counter of the HotSpot ThreadMXBean.
+class EventAllocationTest {
+    private static final int WARMUP_EVENTS = 2_000_000;
+    private static final int MEASURED_EVENTS = 1_000_000;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"priorityQueue", "heap", "calendar"})
+    void steadyStateAllocatesNothing(String impl) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+
+        CenterFactory factory = new CenterFactory(false);
+        SimpleCenter[] centers = {
+                factory.createSmallCenter(false, false),
+                factory.createMediumCenter(false, false),
+                factory.createLargeCenter(false, false)
+        };
+        EventType[] arrivals = {ARRIVAL_SMALL_CENTER, ARRIVAL_MEDIUM_CENTER, ARRIVAL_LARGE_CENTER};
+
+        Rngs rngs = new Rngs();
+        rngs.plantSeeds(123456789L);
+        EventQueue queue = new EventQueue(eventList(impl));
+        for (int i = 0; i < centers.length; i++) {
+            centers[i].start(rngs, 0);
+            queue.addArrival(arrivals[i], centers[i].getArrival());
+        }
+
+        EventDispatcher dispatcher = new EventDispatcher();
+        for (SimpleCenter center : centers) {
+            center.registerHandlers(dispatcher);
+        }
+
+        MsqTime time = new MsqTime();
+        run(queue, time, centers, dispatcher, WARMUP_EVENTS);
+
+        long before = threads.getThreadAllocatedBytes(threadId);
+        run(queue, time, centers, dispatcher, MEASURED_EVENTS);
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        assertEquals(0, allocated, "bytes allocated over " + MEASURED_EVENTS + " events with " + impl);
+    }
+
+    // the lists EventQueueFactory builds for general.eventQueueImpl
+    private static EventList eventList(String impl) {
+        MsqEventPool pool = new MsqEventPool();
+        return switch (impl) {
+            case "priorityQueue" -> new PriorityQueueEventList(pool);
+            case "heap" -> new DaryHeapEventList(64, pool);
+            case "calendar" -> new CalendarEventList(2, 1.0, pool);
+            default -> throw new IllegalArgumentException(impl);
+        };
+    }
+
+    private static void run(EventQueue queue, MsqTime time, SimpleCenter[] centers, EventDispatcher dispatcher, int events) throws Exception {
+        for (int i = 0; i < events; i++) {
+            MsqEvent event = queue.pop();
+            time.next = event.time;
+            for (SimpleCenter center : centers) {
+                center.setArea(time);
+            }
+            time.current = time.next;
+            dispatcher.dispatch(event, time, queue);
+            queue.release(event);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package org.pmcsn.utils;
+
+import org.junit.jupiter.api.Test;
+import org.pmcsn.centers.ServiceGenerator;
+import org.pmcsn.configuration.ConfigurationManager;
+import org.pmcsn.libraries.RngStream;
+import org.pmcsn.libraries.Rngs;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.pmcsn.utils.TruncatedNormalSampler.Inverse.AS241;
+
+// The block transforms of Distributions against the scalar inversion on the same uniforms: bitwise on the
+// scalar fallback, within TOLERANCE (relative) on the vector path. The block bounds are odd, so that both
+// the vector loop and the scalar tail are covered.
+class DistributionsTest {
+    private static final int STREAM = 0;
+    private static final int BLOCK = ServiceGenerator.BLOCK;
+    // the vector log and exp are within 1 ulp, AS241 loses a few more in its tails
+    private static final double TOLERANCE = 1e-13;
+
+    private final double tolerance = Distributions.VECTOR ? TOLERANCE : 0.0;
+    private final TruncatedNormalSampler service = service();
+
+    @Test
+    void exponentialMatchesScalar() {
+        check("exponential", u -> -2.5 * Math.log(1.0 - u),
+                (values, from, to) -> Distributions.exponential(2.5, values, from, to));
+    }
+
+    @Test
+    void logNormalMatchesScalar() {
+        check("lognormal", u -> Math.exp(service.a + service.b * TruncatedNormalSampler.idfStandard(u)),
+                (values, from, to) -> Distributions.logNormal(service.a, service.b, values, from, to));
+    }
+
+    @Test
+    void truncatedServiceMatchesScalar() {
+        check("service", service::quantile, service::transform);
+    }
+
+    // the generator hands out the services of as many sample() calls on the same stream
+    @Test
+    void serviceGeneratorMatchesSample() {
+        RngStream reference = new RngStream(rngs(), STREAM);
+        ServiceGenerator services = new ServiceGenerator(new RngStream(rngs(), STREAM), service::transform);
+        for (int i = 0; i < 10 * BLOCK + 7; i++) {
+            compare("ServiceGenerator", i, service.sample(reference), services.next());
+        }
+    }
+
+    private interface Scalar {
+        double apply(double u);
+    }
+
+    private interface Block {
+        void apply(double[] values, int from, int to);
+    }
+
+    private void check(String name, Scalar scalar, Block block) {
+        RngStream stream = new RngStream(rngs(), STREAM);
+        double[] u = new double[BLOCK + 13];
+        double[] values = new double[u.length];
+        for (int round = 0; round < 1000; round++) {
+            stream.fill(u, 0, u.length);
+            System.arraycopy(u, 0, values, 0, u.length);
+            int from = round % 11;
+            int to = u.length - round % 7;
+            block.apply(values, from, to);
+            for (int i = 0; i < u.length; i++) {
+                double expected = i < from || i >= to ? u[i] : scalar.apply(u[i]);
+                compare(name, i, expected, values[i]);
+            }
+        }
+    }
+
+    private void compare(String name, int index, double expected, double value) {
+        assertTrue(Math.abs(value - expected) <= tolerance * Math.abs(expected),
+                () -> name + " at index " + index + " is " + value + ", expected " + expected);
+    }
+
+    private static Rngs rngs() {
+        Rngs rngs = new Rngs();
+        rngs.plantSeeds(987654321L);
+        return rngs;
+    }
+
+    // the truncated services of the small center
+    private static TruncatedNormalSampler service() {
+        ConfigurationManager config = new ConfigurationManager();
+        return new TruncatedNormalSampler(
+                config.getDouble("smallCenter", "meanServiceTime"),
+                config.getDouble("smallCenter", "sigma"),
+                config.getDouble("smallCenter", "truncationPoint"),
+                AS241);
+    }
+}
@@ -0,0 +1,66 @@
+package org.pmcsn.utils;
+
+import org.junit.jupiter.api.Test;
+import org.pmcsn.configuration.ConfigurationManager;
+import org.pmcsn.libraries.Rngs;
+import org.pmcsn.libraries.Rvms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.pmcsn.utils.TruncatedNormalSampler.Inverse.AS241;
+import static org.pmcsn.utils.TruncatedNormalSampler.Inverse.NEWTON;
+
+// The truncated service times of the small center: the NEWTON sampler returns the very values of
+// Distributions.truncatedNormal, and AS241 stays within TOLERANCE of it.
+class TruncatedNormalSamplerTest {
+    private static final int DRAWS = 100_000;
+    // the Newton iteration of Rvms stops at 1e-10, AS241 is exact to about 1e-16
+    private static final double TOLERANCE = 1e-9;
+
+    private final ConfigurationManager config = new ConfigurationManager();
+    private final double mean = config.getDouble("smallCenter", "meanServiceTime");
+    private final double sigma = config.getDouble("smallCenter", "sigma");
+    private final double truncationPoint = config.getDouble("smallCenter", "truncationPoint");
+
+    @Test
+    void newtonMatchesTruncatedNormal() {
+        TruncatedNormalSampler newton = new TruncatedNormalSampler(mean, sigma, truncationPoint, NEWTON);
+        Rngs reference = rngs();
+        Rngs rngs = rngs();
+        for (int i = 0; i < DRAWS; i++) {
+            double expected = Distributions.truncatedNormal(mean, sigma, truncationPoint, reference);
+            assertEquals(expected, newton.quantile(rngs.random()), "draw " + i);
+        }
+    }
+
+    @Test
+    void as241WithinToleranceOfNewton() {
+        TruncatedNormalSampler newton = new TruncatedNormalSampler(mean, sigma, truncationPoint, NEWTON);
+        TruncatedNormalSampler as241 = new TruncatedNormalSampler(mean, sigma, truncationPoint, AS241);
+        Rngs rngs = rngs();
+        double maxError = 0;
+        for (int i = 0; i < DRAWS; i++) {
+            double u = rngs.random();
+            maxError = Math.max(maxError, Math.abs(as241.quantile(u) - newton.quantile(u)));
+        }
+        assertTrue(maxError <= TOLERANCE, "as241 is " + maxError + " away from the Newton sampler");
+    }
+
+    // the standard inverse down to the tails (the Newton iteration does not always converge further out)
+    @Test
+    void as241StandardWithinToleranceOfNewton() {
+        Rvms rvms = new Rvms();
+        double maxError = 0;
+        for (double p = 1e-6; p <= 0.5; p *= 1.1) {
+            maxError = Math.max(maxError, Math.abs(TruncatedNormalSampler.idfStandard(p) - rvms.idfStandard(p)));
+            maxError = Math.max(maxError, Math.abs(TruncatedNormalSampler.idfStandard(1 - p) - rvms.idfStandard(1 - p)));
+        }
+        assertTrue(maxError <= TOLERANCE, "as241 is " + maxError + " away from the Newton inverse");
+    }
+
+    private static Rngs rngs() {
+        Rngs rngs = new Rngs();
+        rngs.plantSeeds(987654321L);
+        return rngs;
+    }
+}
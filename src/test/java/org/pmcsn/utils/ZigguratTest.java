@@ -0,0 +1,79 @@
+package org.pmcsn.utils;
+
+import org.junit.jupiter.api.Test;
+import org.pmcsn.configuration.ConfigurationManager;
+import org.pmcsn.libraries.RngStream;
+import org.pmcsn.libraries.Rngs;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.pmcsn.utils.TruncatedNormalSampler.Inverse.AS241;
+
+// The ziggurat tables close, and the mean, the second moment and a tail probability of the ziggurat
+// variates match the distributions within 5 standard errors.
+class ZigguratTest {
+    private static final int STREAM = 0;
+    private static final int VARIATES = 4_000_000;
+
+    private final RngStream stream = new RngStream(rngs(), STREAM);
+
+    @Test
+    void tablesClose() {
+        assertTrue(Ziggurat.normalClosure() <= 1e-9, "normal table closure " + Ziggurat.normalClosure());
+        assertTrue(Ziggurat.exponentialClosure() <= 1e-9, "exponential table closure " + Ziggurat.exponentialClosure());
+    }
+
+    @Test
+    void exponentialMoments() {
+        check("exponential mean", moment(() -> Ziggurat.exponential(stream), 1), 1.0, 1.0);
+        check("exponential square", moment(() -> Ziggurat.exponential(stream), 2), 2.0, 20.0);
+        check("exponential tail", moment(() -> Ziggurat.exponential(stream) > 8 ? 1 : 0, 1),
+                Math.exp(-8), Math.exp(-8));
+    }
+
+    @Test
+    void normalMoments() {
+        check("normal mean", moment(() -> Ziggurat.normal(stream), 1), 0.0, 1.0);
+        check("normal square", moment(() -> Ziggurat.normal(stream), 2), 1.0, 2.0);
+        check("normal tail", moment(() -> Ziggurat.normal(stream) > 3.5 ? 1 : 0, 1),
+                2.326290790355e-4, 2.326290790355e-4);
+    }
+
+    // the truncated service times of the small center against the inversion, on a stream of their own
+    @Test
+    void serviceMeanMatchesInversion() {
+        ConfigurationManager config = new ConfigurationManager();
+        TruncatedNormalSampler service = new TruncatedNormalSampler(
+                config.getDouble("smallCenter", "meanServiceTime"),
+                config.getDouble("smallCenter", "sigma"),
+                config.getDouble("smallCenter", "truncationPoint"),
+                AS241);
+        RngStream reference = new RngStream(rngs(), STREAM + 1);
+        double inversion = moment(() -> service.sample(reference), 1);
+        double inversionSquare = moment(() -> service.sample(reference), 2);
+        double variance = inversionSquare - inversion * inversion;
+        check("service mean", moment(() -> service.sampleZiggurat(stream), 1), inversion, 2 * variance);
+    }
+
+    private interface Variate {
+        double next();
+    }
+
+    private static double moment(Variate variate, int power) {
+        double sum = 0;
+        for (int i = 0; i < VARIATES; i++) {
+            sum += Math.pow(variate.next(), power);
+        }
+        return sum / VARIATES;
+    }
+
+    private static void check(String name, double value, double expected, double variance) {
+        double error = 5 * Math.sqrt(variance / VARIATES);
+        assertTrue(Math.abs(value - expected) <= error, () -> name + " is " + value + ", expected " + expected + " +- " + error);
+    }
+
+    private static Rngs rngs() {
+        Rngs rngs = new Rngs();
+        rngs.plantSeeds(987654321L);
+        return rngs;
+    }
+}